@@ -1,7 +1,25 @@
 package com.vialectoris.libreria.core;
 
+import com.vialectoris.libreria.core.carga.ConfiguracionCarga;
+import com.vialectoris.libreria.core.carga.PruebaCarga;
+
 public class Main {
-    public static void main(String[] args) {
-        System.out.println("Hello world!");
+    public static void main(String[] args) throws Exception {
+        ConfiguracionCarga configuracion;
+        try {
+            configuracion = ConfiguracionCarga.desdeArgumentos(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ConfiguracionCarga.USO);
+            System.exit(2);
+            return;
+        }
+
+        if (configuracion.isAyuda()) {
+            System.out.println(ConfiguracionCarga.USO);
+            return;
+        }
+
+        new PruebaCarga(configuracion).ejecutar(System.out);
     }
-}
\ No newline at end of file
+}
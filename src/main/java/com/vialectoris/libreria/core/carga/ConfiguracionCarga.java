@@ -0,0 +1,191 @@
+package com.vialectoris.libreria.core.carga;
+
+import java.util.Locale;
+
+/**
+ * Parámetros de la prueba de carga, leídos de la línea de comandos con el formato --clave=valor
+ */
+public class ConfiguracionCarga {
+    public static final String USO = String.join(System.lineSeparator(),
+            "Uso: Main [opciones]",
+            "  --libros=N             libros del catálogo sintético (2000)",
+            "  --autores=N            autores del catálogo sintético (500)",
+            "  --hilos=N              hilos que ejecutan operaciones en paralelo (4)",
+            "  --operaciones=N        operaciones en total, repartidas entre los hilos (20000)",
+            "  --mezcla=I,A,L,E       porcentaje de búsquedas por ISBN, autores por ID,",
+            "                         libros por autor e inserciones (60,20,10,10)",
+            "  --zipf=S               exponente de Zipf de ISBN y autores consultados (1.1)",
+            "  --almacen=TIPO         simple, incremental o particionado (simple)",
+            "  --particiones=N        particiones del almacén particionado (4)",
+            "  --comprimido           guardar los archivos comprimidos con gzip",
+            "  --directorio=RUTA      directorio de los archivos (uno temporal que se borra al final)",
+            "                         si ya tiene un catálogo de otra ejecución, se reemplaza",
+            "  --semilla=N            semilla de los generadores aleatorios (42)",
+            "  --ayuda                mostrar esta ayuda");
+
+    public enum TipoAlmacen {
+        SIMPLE, INCREMENTAL, PARTICIONADO
+    }
+
+    private int libros = 2000;
+    private int autores = 500;
+    private int hilos = 4;
+    private int operaciones = 20000;
+    private int[] mezcla = {60, 20, 10, 10};
+    private double exponenteZipf = 1.1;
+    private TipoAlmacen almacen = TipoAlmacen.SIMPLE;
+    private int particiones = 4;
+    private boolean comprimido;
+    private String directorio;
+    private long semilla = 42;
+    private boolean ayuda;
+
+    /**
+     * Método para construir la configuración a partir de los argumentos de Main
+     */
+    public static ConfiguracionCarga desdeArgumentos(String[] argumentos) {
+        ConfiguracionCarga configuracion = new ConfiguracionCarga();
+
+        for (String argumento : argumentos) {
+            if (!argumento.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento no reconocido: " + argumento);
+            }
+            int igual = argumento.indexOf('=');
+            String clave = igual < 0 ? argumento.substring(2) : argumento.substring(2, igual);
+            String valor = igual < 0 ? null : argumento.substring(igual + 1);
+
+            switch (clave) {
+                case "libros" -> configuracion.libros = positivo(clave, valor);
+                case "autores" -> configuracion.autores = positivo(clave, valor);
+                case "hilos" -> configuracion.hilos = positivo(clave, valor);
+                case "operaciones" -> configuracion.operaciones = positivo(clave, valor);
+                case "mezcla" -> configuracion.mezcla = mezcla(valor);
+                case "zipf" -> configuracion.exponenteZipf = decimal(clave, valor);
+                case "almacen" -> configuracion.almacen = almacen(valor);
+                case "particiones" -> configuracion.particiones = positivo(clave, valor);
+                case "comprimido" -> configuracion.comprimido = true;
+                case "directorio" -> configuracion.directorio = requerido(clave, valor);
+                case "semilla" -> configuracion.semilla = Long.parseLong(requerido(clave, valor));
+                case "ayuda" -> configuracion.ayuda = true;
+                default -> throw new IllegalArgumentException("Opción desconocida: --" + clave);
+            }
+        }
+
+        return configuracion;
+    }
+
+    private static String requerido(String clave, String valor) {
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("La opción --" + clave + " requiere un valor");
+        }
+        return valor;
+    }
+
+    private static int positivo(String clave, String valor) {
+        try {
+            int numero = Integer.parseInt(requerido(clave, valor));
+            if (numero <= 0) {
+                throw new IllegalArgumentException("La opción --" + clave + " debe ser positiva: " + valor);
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La opción --" + clave + " debe ser un número entero: " + valor);
+        }
+    }
+
+    private static double decimal(String clave, String valor) {
+        try {
+            double numero = Double.parseDouble(requerido(clave, valor));
+            if (numero < 0) {
+                throw new IllegalArgumentException("La opción --" + clave + " no puede ser negativa: " + valor);
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La opción --" + clave + " debe ser un número: " + valor);
+        }
+    }
+
+    private static int[] mezcla(String valor) {
+        String[] partes = requerido("mezcla", valor).split(",");
+        if (partes.length != 4) {
+            throw new IllegalArgumentException("La mezcla debe tener cuatro porcentajes: " + valor);
+        }
+
+        int[] porcentajes = new int[4];
+        int suma = 0;
+        for (int i = 0; i < partes.length; i++) {
+            try {
+                porcentajes[i] = Integer.parseInt(partes[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Porcentaje inválido en la mezcla: " + partes[i]);
+            }
+            if (porcentajes[i] < 0) {
+                throw new IllegalArgumentException("Porcentaje negativo en la mezcla: " + partes[i]);
+            }
+            suma += porcentajes[i];
+        }
+        if (suma != 100) {
+            throw new IllegalArgumentException("Los porcentajes de la mezcla deben sumar 100: " + valor);
+        }
+        return porcentajes;
+    }
+
+    private static TipoAlmacen almacen(String valor) {
+        try {
+            return TipoAlmacen.valueOf(requerido("almacen", valor).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Almacén desconocido: " + valor + " (simple, incremental o particionado)");
+        }
+    }
+
+    public int getLibros() {
+        return libros;
+    }
+
+    public int getAutores() {
+        return autores;
+    }
+
+    public int getHilos() {
+        return hilos;
+    }
+
+    public int getOperaciones() {
+        return operaciones;
+    }
+
+    /**
+     * Porcentajes de búsquedas por ISBN, autores por ID, libros por autor e inserciones
+     */
+    public int[] getMezcla() {
+        return mezcla.clone();
+    }
+
+    public double getExponenteZipf() {
+        return exponenteZipf;
+    }
+
+    public TipoAlmacen getAlmacen() {
+        return almacen;
+    }
+
+    public int getParticiones() {
+        return particiones;
+    }
+
+    public boolean isComprimido() {
+        return comprimido;
+    }
+
+    public String getDirectorio() {
+        return directorio;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    public boolean isAyuda() {
+        return ayuda;
+    }
+}
@@ -0,0 +1,48 @@
+package com.vialectoris.libreria.core.carga;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribución de Zipf sobre los rangos 0..n-1
+ * El rango 0 es el más frecuente: su probabilidad es proporcional a 1 / (rango + 1)^exponente.
+ * Se precalcula la distribución acumulada y cada muestra es una búsqueda binaria.
+ */
+public class DistribucionZipf {
+    private final double[] acumulada;
+
+    public DistribucionZipf(int n, double exponente) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("La cantidad de elementos debe ser positiva: " + n);
+        }
+        if (exponente < 0) {
+            throw new IllegalArgumentException("El exponente no puede ser negativo: " + exponente);
+        }
+
+        acumulada = new double[n];
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            suma += 1.0 / Math.pow(i + 1, exponente);
+            acumulada[i] = suma;
+        }
+        for (int i = 0; i < n; i++) {
+            acumulada[i] /= suma;
+        }
+    }
+
+    public int getCantidad() {
+        return acumulada.length;
+    }
+
+    /**
+     * Método para obtener un rango al azar según la distribución
+     */
+    public int muestra(RandomGenerator aleatorio) {
+        double u = aleatorio.nextDouble();
+        int posicion = Arrays.binarySearch(acumulada, u);
+        if (posicion < 0) {
+            posicion = -posicion - 1;
+        }
+        return Math.min(posicion, acumulada.length - 1);
+    }
+}
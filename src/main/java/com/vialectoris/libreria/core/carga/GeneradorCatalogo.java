@@ -0,0 +1,114 @@
+package com.vialectoris.libreria.core.carga;
+
+import com.vialectoris.libreria.core.domain.Autor;
+import com.vialectoris.libreria.core.domain.Libro;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generador de un catálogo sintético de autores y libros
+ * La cantidad de autores por libro sigue la forma habitual de un catálogo real (la mayoría
+ * de los libros tiene un solo autor y pocos tienen más de dos) y los autores de cada libro
+ * se eligen con una distribución de Zipf, de modo que unos pocos autores tienen muchos libros.
+ */
+public class GeneradorCatalogo {
+    // Probabilidad acumulada de que un libro tenga 1, 2, 3 o 4 autores
+    private static final double[] AUTORES_POR_LIBRO = {0.75, 0.93, 0.98, 1.0};
+
+    private static final String[] NOMBRES = {
+            "Ana", "Carlos", "María", "José", "Lucía", "Andrés", "Carmen", "Diego", "Elena", "Fernando",
+            "Gabriela", "Héctor", "Isabel", "Jorge", "Laura", "Manuel", "Natalia", "Óscar", "Paula", "Rafael"};
+    private static final String[] APELLIDOS = {
+            "Araya", "Brenes", "Castro", "Díaz", "Esquivel", "Fallas", "González", "Hernández", "Jiménez", "López",
+            "Mora", "Núñez", "Quesada", "Rodríguez", "Solano", "Torres", "Ulate", "Vargas", "Zamora", "Rojas"};
+    private static final String[] NACIONALIDADES = {
+            "Costarricense", "Mexicana", "Argentina", "Colombiana", "Chilena", "Española", "Peruana", "Uruguaya"};
+    private static final String[] PALABRAS_TITULO = {
+            "Cien", "Años", "Sombra", "Viento", "Memoria", "Ciudad", "Noche", "Río", "Mar", "Casa",
+            "Silencio", "Tiempo", "Camino", "Jardín", "Fuego", "Luna", "Invierno", "Volcán", "Café", "Isla",
+            "Historia", "Secreto", "Voces", "Tierra", "Cielo", "Piedra", "Espejo", "Lluvia", "Montaña", "Puerto"};
+
+    private final int cantidadAutores;
+    private final DistribucionZipf distribucionAutores;
+
+    public GeneradorCatalogo(int cantidadAutores, double exponenteZipf) {
+        this.cantidadAutores = cantidadAutores;
+        this.distribucionAutores = new DistribucionZipf(cantidadAutores, exponenteZipf);
+    }
+
+    /**
+     * Método para generar los autores, con IDs de 1 a la cantidad de autores
+     */
+    public List<Autor> generarAutores(RandomGenerator aleatorio) {
+        List<Autor> autores = new ArrayList<>(cantidadAutores);
+        for (int idAutor = 1; idAutor <= cantidadAutores; idAutor++) {
+            autores.add(new Autor(idAutor,
+                    elegir(NOMBRES, aleatorio),
+                    elegir(APELLIDOS, aleatorio) + " " + elegir(APELLIDOS, aleatorio),
+                    elegir(NACIONALIDADES, aleatorio)));
+        }
+        return autores;
+    }
+
+    /**
+     * Método para generar un libro con el ISBN indicado
+     * Los autores solo llevan el ID, igual que en el archivo de libros
+     */
+    public Libro generarLibro(String isbn, RandomGenerator aleatorio) {
+        StringBuilder titulo = new StringBuilder();
+        int palabras = 2 + aleatorio.nextInt(4);
+        for (int i = 0; i < palabras; i++) {
+            if (i > 0) {
+                titulo.append(' ');
+            }
+            titulo.append(elegir(PALABRAS_TITULO, aleatorio));
+        }
+
+        Libro libro = new Libro(isbn, titulo.toString(), 1900 + aleatorio.nextInt(126));
+        for (int idAutor : elegirAutores(aleatorio)) {
+            libro.addAutor(new Autor(idAutor, null, null, null));
+        }
+        return libro;
+    }
+
+    /**
+     * Método para elegir un ID de autor según la distribución de Zipf (el autor 1 es el más frecuente)
+     */
+    public int elegirIdAutor(RandomGenerator aleatorio) {
+        return distribucionAutores.muestra(aleatorio) + 1;
+    }
+
+    /**
+     * Método para formar un ISBN-13 sintético a partir de un número de secuencia
+     */
+    public static String isbn(long numero) {
+        return String.format("978%010d", numero);
+    }
+
+    private Set<Integer> elegirAutores(RandomGenerator aleatorio) {
+        double u = aleatorio.nextDouble();
+        int cantidad = 1;
+        while (cantidad < AUTORES_POR_LIBRO.length && u >= AUTORES_POR_LIBRO[cantidad - 1]) {
+            cantidad++;
+        }
+        cantidad = Math.min(cantidad, cantidadAutores);
+
+        // Un mismo autor no puede aparecer dos veces en el libro; si el elegido se repite se
+        // toma uno uniforme para no quedar atrapado con exponentes muy sesgados
+        Set<Integer> idsAutor = new LinkedHashSet<>();
+        while (idsAutor.size() < cantidad) {
+            if (!idsAutor.add(elegirIdAutor(aleatorio))) {
+                idsAutor.add(1 + aleatorio.nextInt(cantidadAutores));
+            }
+        }
+        return idsAutor;
+    }
+
+    private static String elegir(String[] opciones, RandomGenerator aleatorio) {
+        return opciones[aleatorio.nextInt(opciones.length)];
+    }
+}
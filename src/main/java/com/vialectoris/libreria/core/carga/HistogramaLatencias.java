@@ -0,0 +1,108 @@
+package com.vialectoris.libreria.core.carga;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales
+ * Cada potencia de dos se divide en 32 cubetas, por lo que el error relativo de un
+ * percentil es a lo sumo 1/32 (≈3,1 %) y la memoria es fija sin importar la cantidad de muestras.
+ * No es seguro entre hilos: cada hilo registra en su propio histograma y al final se
+ * combinan con agregar().
+ */
+public class HistogramaLatencias {
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int CUBETAS = (64 - BITS_SUBCUBETA) * SUBCUBETAS + SUBCUBETAS;
+
+    private final long[] conteos = new long[CUBETAS];
+    private long total;
+    private long minimo = Long.MAX_VALUE;
+    private long maximo;
+    private long suma;
+
+    /**
+     * Método para registrar una latencia (valores negativos se registran como cero)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        conteos[cubeta(valor)]++;
+        total++;
+        suma += valor;
+        minimo = Math.min(minimo, valor);
+        maximo = Math.max(maximo, valor);
+    }
+
+    /**
+     * Método para sumar las muestras de otro histograma a este
+     */
+    public void agregar(HistogramaLatencias otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos[i] += otro.conteos[i];
+        }
+        total += otro.total;
+        suma += otro.suma;
+        minimo = Math.min(minimo, otro.minimo);
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMinimo() {
+        return total == 0 ? 0 : minimo;
+    }
+
+    public long getMaximo() {
+        return maximo;
+    }
+
+    public double getPromedio() {
+        return total == 0 ? 0 : (double) suma / total;
+    }
+
+    /**
+     * Método para obtener un percentil (por ejemplo 0.99); retorna el límite superior de la
+     * cubeta que lo contiene, acotado por el máximo registrado
+     */
+    public long percentil(double fraccion) {
+        if (fraccion < 0 || fraccion > 1) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 1: " + fraccion);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long objetivo = Math.max(1, (long) Math.ceil(fraccion * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Los valores menores a 2 * SUBCUBETAS tienen una cubeta cada uno; los demás comparten
+     * cubeta con los valores que tienen los mismos BITS_SUBCUBETA + 1 bits más significativos
+     */
+    static int cubeta(long valor) {
+        if (valor < 2 * SUBCUBETAS) {
+            return (int) valor;
+        }
+        int desplazamiento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBCUBETA;
+        return desplazamiento * SUBCUBETAS + (int) (valor >>> desplazamiento);
+    }
+
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < 2 * SUBCUBETAS) {
+            return cubeta;
+        }
+        int desplazamiento = cubeta / SUBCUBETAS - 1;
+        long mantisa = cubeta % SUBCUBETAS + SUBCUBETAS;
+        if (mantisa + 1 > Long.MAX_VALUE >>> desplazamiento) {
+            return Long.MAX_VALUE;
+        }
+        return ((mantisa + 1) << desplazamiento) - 1;
+    }
+}
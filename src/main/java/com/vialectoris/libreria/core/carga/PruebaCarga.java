@@ -0,0 +1,399 @@
+package com.vialectoris.libreria.core.carga;
+
+import com.vialectoris.libreria.core.data.AutorXmlData;
+import com.vialectoris.libreria.core.data.LibroXmlData;
+import com.vialectoris.libreria.core.data.LibroXmlDataIncremental;
+import com.vialectoris.libreria.core.data.LibroXmlDataParticionado;
+import com.vialectoris.libreria.core.domain.Libro;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Prueba de carga sobre los almacenes XML
+ * Sintetiza un catálogo, ejecuta una mezcla de lecturas y escrituras desde varios hilos y
+ * reporta el rendimiento (operaciones por segundo) y la latencia p50/p99/p999 de cada tipo
+ * de operación. Los ISBN y autores consultados siguen una distribución de Zipf para
+ * reproducir el sesgo de un catálogo real, donde pocos libros concentran la mayoría de las
+ * consultas.
+ */
+public class PruebaCarga {
+    // Libros por llamada a insertarLote al sintetizar el catálogo
+    private static final int TAMANO_LOTE_SINTESIS = 10000;
+
+    private final ConfiguracionCarga configuracion;
+
+    public enum TipoOperacion {
+        LIBRO_POR_ISBN("libro por ISBN"),
+        AUTOR_POR_ID("autor por ID"),
+        LIBROS_POR_AUTOR("libros por autor"),
+        INSERTAR_LIBRO("insertar libro");
+
+        private final String descripcion;
+
+        TipoOperacion(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+    }
+
+    public PruebaCarga(ConfiguracionCarga configuracion) {
+        this.configuracion = configuracion;
+    }
+
+    /**
+     * Método para ejecutar la prueba completa e imprimir el reporte
+     * Retorna los histogramas de latencia combinados de todos los hilos
+     */
+    public Map<TipoOperacion, HistogramaLatencias> ejecutar(PrintStream salida) throws IOException, InterruptedException {
+        boolean directorioTemporal = configuracion.getDirectorio() == null;
+        File directorio = directorioTemporal
+                ? Files.createTempDirectory("vialectoris-carga").toFile()
+                : new File(configuracion.getDirectorio());
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IOException("No se pudo crear el directorio: " + directorio);
+        }
+        // Un catálogo de una ejecución anterior se reemplaza: los autores se volverían a
+        // agregar y las consultas por Zipf suponen exactamente los libros de esta configuración
+        if (!directorioTemporal && borrarCatalogo(directorio) > 0) {
+            salida.println("Se reemplaza el catálogo existente en " + directorio);
+        }
+
+        try {
+            return ejecutar(directorio, salida);
+        } finally {
+            if (directorioTemporal) {
+                borrarDirectorio(directorio);
+            }
+        }
+    }
+
+    private Map<TipoOperacion, HistogramaLatencias> ejecutar(File directorio, PrintStream salida)
+            throws IOException, InterruptedException {
+        String rutaAutores = new File(directorio, "autores.xml").getPath();
+        String rutaLibros = new File(directorio, "libros.xml").getPath();
+        GeneradorCatalogo generador = new GeneradorCatalogo(configuracion.getAutores(), configuracion.getExponenteZipf());
+        RandomGenerator aleatorio = new SplittableRandom(configuracion.getSemilla());
+
+        salida.printf(Locale.ROOT, "Sintetizando %d autores y %d libros en %s (almacén %s%s)%n",
+                configuracion.getAutores(), configuracion.getLibros(), directorio,
+                configuracion.getAlmacen().name().toLowerCase(Locale.ROOT),
+                configuracion.isComprimido() ? ", comprimido" : "");
+        long inicioSintesis = System.nanoTime();
+
+        AutorXmlData autorXmlData = new AutorXmlData(rutaAutores, configuracion.isComprimido());
+        autorXmlData.insertarLote(generador.generarAutores(aleatorio));
+
+        AlmacenLibros almacen = crearAlmacen(rutaLibros, autorXmlData, generador, aleatorio);
+
+        salida.printf(Locale.ROOT, "Catálogo listo en %.1f s%n", (System.nanoTime() - inicioSintesis) / 1e9);
+
+        try {
+            Map<TipoOperacion, HistogramaLatencias> totales = new EnumMap<>(TipoOperacion.class);
+            for (TipoOperacion tipo : TipoOperacion.values()) {
+                totales.put(tipo, new HistogramaLatencias());
+            }
+
+            long duracion = ejecutarOperaciones(almacen, autorXmlData, generador, totales);
+            imprimirReporte(salida, totales, duracion, directorio);
+            return totales;
+        } finally {
+            almacen.cerrar();
+        }
+    }
+
+    /**
+     * Carga los libros sintéticos por lotes y abre el almacén elegido sobre ellos
+     */
+    private AlmacenLibros crearAlmacen(String rutaLibros, AutorXmlData autorXmlData, GeneradorCatalogo generador,
+                                       RandomGenerator aleatorio) {
+        boolean comprimido = configuracion.isComprimido();
+
+        if (configuracion.getAlmacen() == ConfiguracionCarga.TipoAlmacen.PARTICIONADO) {
+            LibroXmlDataParticionado particionado = new LibroXmlDataParticionado(
+                    rutaLibros, configuracion.getParticiones(), autorXmlData, comprimido);
+            sintetizarLibros(generador, aleatorio, particionado::insertarLote);
+            return new AlmacenLibros() {
+                @Override
+                public void insertar(Libro libro) {
+                    particionado.insertar(libro);
+                }
+
+                @Override
+                public Optional<Libro> findLibroByIsbn(String isbn) {
+                    return particionado.findLibroByIsbn(isbn);
+                }
+
+                @Override
+                public Map<String, Libro> findLibrosByIdAutor(int idAutor) {
+                    return particionado.findLibrosByIdAutor(idAutor);
+                }
+
+                @Override
+                public void cerrar() {
+                    particionado.cerrar();
+                }
+            };
+        }
+
+        LibroXmlData libroXmlData = new LibroXmlData(rutaLibros, autorXmlData, comprimido);
+        sintetizarLibros(generador, aleatorio, libroXmlData::insertarLote);
+
+        if (configuracion.getAlmacen() == ConfiguracionCarga.TipoAlmacen.INCREMENTAL) {
+            // El archivo generado pasa a ser la base; las inserciones de la prueba van a los runs
+            LibroXmlDataIncremental incremental = new LibroXmlDataIncremental(rutaLibros, autorXmlData,
+                    LibroXmlDataIncremental.TAMANO_RUN_POR_DEFECTO, comprimido);
+            incremental.iniciarCompactador(1, TimeUnit.SECONDS);
+            return new AlmacenLibros() {
+                @Override
+                public void insertar(Libro libro) {
+                    incremental.insertar(libro);
+                }
+
+                @Override
+                public Optional<Libro> findLibroByIsbn(String isbn) {
+                    return incremental.findLibroByIsbn(isbn);
+                }
+
+                @Override
+                public Map<String, Libro> findLibrosByIdAutor(int idAutor) {
+                    return incremental.findLibrosByIdAutor(idAutor);
+                }
+
+                @Override
+                public void cerrar() {
+                    incremental.cerrar();
+                }
+            };
+        }
+
+        return new AlmacenLibros() {
+            @Override
+            public void insertar(Libro libro) {
+                libroXmlData.insertar(libro);
+            }
+
+            @Override
+            public Optional<Libro> findLibroByIsbn(String isbn) {
+                return libroXmlData.findLibroByIsbn(isbn);
+            }
+
+            @Override
+            public Map<String, Libro> findLibrosByIdAutor(int idAutor) {
+                return libroXmlData.findLibrosByIdAutor(idAutor);
+            }
+
+            @Override
+            public void cerrar() {
+            }
+        };
+    }
+
+    private void sintetizarLibros(GeneradorCatalogo generador, RandomGenerator aleatorio, Lote lote) {
+        List<Libro> libros = new ArrayList<>(Math.min(configuracion.getLibros(), TAMANO_LOTE_SINTESIS));
+        for (int i = 0; i < configuracion.getLibros(); i++) {
+            libros.add(generador.generarLibro(GeneradorCatalogo.isbn(i), aleatorio));
+            if (libros.size() == TAMANO_LOTE_SINTESIS) {
+                lote.insertar(libros);
+                libros.clear();
+            }
+        }
+        if (!libros.isEmpty()) {
+            lote.insertar(libros);
+        }
+    }
+
+    /**
+     * Reparte las operaciones entre los hilos, que arrancan juntos; retorna la duración en nanosegundos
+     */
+    private long ejecutarOperaciones(AlmacenLibros almacen, AutorXmlData autorXmlData, GeneradorCatalogo generador,
+                                     Map<TipoOperacion, HistogramaLatencias> totales) throws InterruptedException {
+        int hilos = configuracion.getHilos();
+        int[] mezcla = configuracion.getMezcla();
+        DistribucionZipf distribucionLibros = new DistribucionZipf(configuracion.getLibros(), configuracion.getExponenteZipf());
+        int[] isbnPorRango = permutacion(configuracion.getLibros(), new SplittableRandom(configuracion.getSemilla() + 1));
+        AtomicLong siguienteIsbn = new AtomicLong(configuracion.getLibros());
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Map<TipoOperacion, HistogramaLatencias>>> pendientes = new ArrayList<>();
+
+        for (int h = 0; h < hilos; h++) {
+            int operaciones = configuracion.getOperaciones() / hilos + (h < configuracion.getOperaciones() % hilos ? 1 : 0);
+            RandomGenerator aleatorio = new SplittableRandom(configuracion.getSemilla() + 100 + h);
+
+            pendientes.add(ejecutor.submit(() -> {
+                Map<TipoOperacion, HistogramaLatencias> histogramas = new EnumMap<>(TipoOperacion.class);
+                for (TipoOperacion tipo : TipoOperacion.values()) {
+                    histogramas.put(tipo, new HistogramaLatencias());
+                }
+
+                largada.await();
+                for (int i = 0; i < operaciones; i++) {
+                    TipoOperacion tipo = elegirOperacion(mezcla, aleatorio);
+
+                    // Los datos de la operación se preparan fuera de la medición
+                    String isbn = null;
+                    int idAutor = 0;
+                    Libro libro = null;
+                    switch (tipo) {
+                        case LIBRO_POR_ISBN -> isbn = GeneradorCatalogo.isbn(isbnPorRango[distribucionLibros.muestra(aleatorio)]);
+                        case AUTOR_POR_ID, LIBROS_POR_AUTOR -> idAutor = generador.elegirIdAutor(aleatorio);
+                        case INSERTAR_LIBRO -> libro = generador.generarLibro(
+                                GeneradorCatalogo.isbn(siguienteIsbn.getAndIncrement()), aleatorio);
+                    }
+
+                    long inicio = System.nanoTime();
+                    switch (tipo) {
+                        case LIBRO_POR_ISBN -> almacen.findLibroByIsbn(isbn);
+                        case AUTOR_POR_ID -> autorXmlData.findAutorById(idAutor);
+                        case LIBROS_POR_AUTOR -> almacen.findLibrosByIdAutor(idAutor);
+                        case INSERTAR_LIBRO -> almacen.insertar(libro);
+                    }
+                    histogramas.get(tipo).registrar(System.nanoTime() - inicio);
+                }
+                return histogramas;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        try {
+            for (Future<Map<TipoOperacion, HistogramaLatencias>> pendiente : pendientes) {
+                for (Map.Entry<TipoOperacion, HistogramaLatencias> parcial : pendiente.get().entrySet()) {
+                    totales.get(parcial.getKey()).agregar(parcial.getValue());
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló un hilo de la prueba de carga", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private void imprimirReporte(PrintStream salida, Map<TipoOperacion, HistogramaLatencias> totales,
+                                 long duracion, File directorio) {
+        HistogramaLatencias global = new HistogramaLatencias();
+        for (HistogramaLatencias histograma : totales.values()) {
+            global.agregar(histograma);
+        }
+        double segundos = duracion / 1e9;
+
+        salida.printf(Locale.ROOT, "%d operaciones con %d hilos en %.2f s: %.0f op/s%n",
+                global.getTotal(), configuracion.getHilos(), segundos, global.getTotal() / segundos);
+        salida.printf(Locale.ROOT, "%-18s %10s %12s %10s %10s %10s %10s%n",
+                "operación", "cantidad", "op/s", "p50 µs", "p99 µs", "p999 µs", "máx µs");
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            imprimirFila(salida, tipo.getDescripcion(), totales.get(tipo), segundos);
+        }
+        imprimirFila(salida, "total", global, segundos);
+
+        long bytes = 0;
+        File[] archivos = directorio.listFiles();
+        if (archivos != null) {
+            for (File archivo : archivos) {
+                bytes += archivo.length();
+            }
+        }
+        salida.printf(Locale.ROOT, "Tamaño en disco: %.1f KiB%n", bytes / 1024.0);
+    }
+
+    private static void imprimirFila(PrintStream salida, String nombre, HistogramaLatencias histograma, double segundos) {
+        if (histograma.getTotal() == 0) {
+            return;
+        }
+        salida.printf(Locale.ROOT, "%-18s %10d %12.0f %10.1f %10.1f %10.1f %10.1f%n",
+                nombre, histograma.getTotal(), histograma.getTotal() / segundos,
+                histograma.percentil(0.50) / 1e3, histograma.percentil(0.99) / 1e3,
+                histograma.percentil(0.999) / 1e3, histograma.getMaximo() / 1e3);
+    }
+
+    private static TipoOperacion elegirOperacion(int[] mezcla, RandomGenerator aleatorio) {
+        int valor = aleatorio.nextInt(100);
+        TipoOperacion[] tipos = TipoOperacion.values();
+        for (int i = 0; i < tipos.length; i++) {
+            valor -= mezcla[i];
+            if (valor < 0) {
+                return tipos[i];
+            }
+        }
+        return tipos[tipos.length - 1];
+    }
+
+    /**
+     * Asigna a cada rango de popularidad un libro al azar, para que los libros más consultados
+     * no sean siempre los primeros generados (ni caigan en la misma partición)
+     */
+    private static int[] permutacion(int n, RandomGenerator aleatorio) {
+        int[] valores = new int[n];
+        for (int i = 0; i < n; i++) {
+            valores[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = aleatorio.nextInt(i + 1);
+            int temporal = valores[i];
+            valores[i] = valores[j];
+            valores[j] = temporal;
+        }
+        return valores;
+    }
+
+    /**
+     * Borra solo los archivos que crea la prueba (autores, libros, particiones, manifiesto y
+     * runs); retorna la cantidad de archivos borrados
+     */
+    private static int borrarCatalogo(File directorio) throws IOException {
+        int borrados = 0;
+        File[] archivos = directorio.listFiles();
+        if (archivos != null) {
+            for (File archivo : archivos) {
+                String nombre = archivo.getName();
+                if (archivo.isFile() && (nombre.startsWith("autores.xml") || nombre.startsWith("libros.xml")
+                        || nombre.matches("libros-\\d+\\.xml.*"))) {
+                    if (!archivo.delete()) {
+                        throw new IOException("No se pudo borrar " + archivo);
+                    }
+                    borrados++;
+                }
+            }
+        }
+        return borrados;
+    }
+
+    private static void borrarDirectorio(File directorio) {
+        File[] archivos = directorio.listFiles();
+        if (archivos != null) {
+            for (File archivo : archivos) {
+                archivo.delete();
+            }
+        }
+        directorio.delete();
+    }
+
+    /**
+     * Operaciones comunes a los tres almacenes de libros
+     */
+    private interface AlmacenLibros {
+        void insertar(Libro libro);
+
+        Optional<Libro> findLibroByIsbn(String isbn);
+
+        Map<String, Libro> findLibrosByIdAutor(int idAutor);
+
+        void cerrar();
+    }
+
+    private interface Lote {
+        void insertar(Collection<Libro> libros);
+    }
+}
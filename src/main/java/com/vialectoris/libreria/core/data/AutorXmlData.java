@@ -4,24 +4,34 @@ import com.vialectoris.libreria.core.domain.Autor;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
 
 public class AutorXmlData {
     private String rutaArchivo;
+    private boolean comprimido; // Guardar el archivo en formato compacto comprimido con gzip
+
+    // Índice ordenado por idAutor; se carga al primer uso y se mantiene en cada escritura
+    private TreeMap<Integer, Autor> indicePorId;
+    private XmlArchivos.Firma firma;
 
     /**
      * Constructor que verifica si el archivo existe y lo crea si no
      */
     public AutorXmlData(String rutaArchivo) {
+        this(rutaArchivo, false);
+    }
+
+    /**
+     * Constructor que permite guardar el archivo comprimido
+     * Un archivo existente que ya esté comprimido se sigue guardando comprimido
+     */
+    public AutorXmlData(String rutaArchivo, boolean comprimido) {
         this.rutaArchivo = rutaArchivo;
         File archivo = new File(rutaArchivo);
+        this.comprimido = comprimido || XmlArchivos.estaComprimido(archivo);
 
         if (!archivo.exists()) {
             crearArchivoVacio();
@@ -33,19 +43,10 @@ public class AutorXmlData {
      */
     private void crearArchivoVacio() {
         try {
-            // Asegurarse de que el directorio existe
-            File archivo = new File(rutaArchivo);
-            File directorio = archivo.getParentFile();
-            if (directorio != null && !directorio.exists()) {
-                directorio.mkdirs();
-            }
-
             Element raiz = new Element("autores");
             Document documento = new Document(raiz);
 
-            XMLOutputter xmlOutput = new XMLOutputter();
-            xmlOutput.setFormat(Format.getPrettyFormat());
-            xmlOutput.output(documento, new FileOutputStream(rutaArchivo));
+            XmlArchivos.escribir(documento, new File(rutaArchivo), comprimido);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -54,7 +55,7 @@ public class AutorXmlData {
     /**
      * Método insertar (adiciona al final del archivo)
      */
-    public void insertar(Autor autor) {
+    public synchronized void insertar(Autor autor) {
         try {
             // Verificar si el archivo existe, si no, crearlo
             File archivoXml = new File(rutaArchivo);
@@ -63,25 +64,20 @@ public class AutorXmlData {
             }
 
             // Cargar el documento existente
-            SAXBuilder builder = new SAXBuilder();
-            Document documento = builder.build(archivoXml);
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
             Element raiz = documento.getRootElement();
 
             // Crear elemento para el nuevo autor
-            Element elementoAutor = new Element("autor");
-            elementoAutor.setAttribute("idAutor", String.valueOf(autor.getIdAutor()));
-
-            elementoAutor.addContent(new Element("nombre").setText(autor.getNombre()));
-            elementoAutor.addContent(new Element("apellidos").setText(autor.getApellidos()));
-            elementoAutor.addContent(new Element("nacionalidad").setText(autor.getNacionalidad()));
+            Element elementoAutor = autorAElemento(autor);
 
             // Adicionar al final del archivo
             raiz.addContent(elementoAutor);
 
             // Guardar el documento
-            XMLOutputter xmlOutput = new XMLOutputter();
-            xmlOutput.setFormat(Format.getPrettyFormat());
-            xmlOutput.output(documento, new FileOutputStream(rutaArchivo));
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            // Si el ID está repetido, el índice conserva el primero del archivo
+            mantenerIndice(indiceAlDia, () -> indicePorId.putIfAbsent(autor.getIdAutor(), elementoAAutor(elementoAutor)));
 
         } catch (JDOMException | IOException e) {
             e.printStackTrace();
@@ -89,71 +85,175 @@ public class AutorXmlData {
     }
 
     /**
-     * Método findAll (retorna todos los registros de autor presentes en el archivo)
-     * El método debe retornar un Set de autores
+     * Método insertarLote (adiciona varios autores al final con una sola lectura y escritura del archivo)
+     * Retorna la cantidad de autores insertados
      */
-    public Set<Autor> findAll() {
-        Set<Autor> autoresSet = new HashSet<>();
-
+    public synchronized int insertarLote(Collection<Autor> autores) {
         try {
-            // Verificar si el archivo existe o está vacío
             File archivoXml = new File(rutaArchivo);
             if (!archivoXml.exists() || archivoXml.length() == 0) {
-                return autoresSet; // Retornar conjunto vacío si no hay archivo o está vacío
+                crearArchivoVacio();
             }
 
-            SAXBuilder builder = new SAXBuilder();
-            Document documento = builder.build(archivoXml);
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
             Element raiz = documento.getRootElement();
 
-            List<Element> autores = raiz.getChildren("autor");
+            List<Element> nuevos = new ArrayList<>();
+            for (Autor autor : autores) {
+                nuevos.add(autorAElemento(autor));
+            }
+            raiz.addContent(nuevos);
+
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            // Si un ID está repetido, el índice conserva el primero del archivo
+            mantenerIndice(indiceAlDia, () -> {
+                for (Element elementoAutor : nuevos) {
+                    Autor autor = elementoAAutor(elementoAutor);
+                    indicePorId.putIfAbsent(autor.getIdAutor(), autor);
+                }
+            });
+            return nuevos.size();
+
+        } catch (JDOMException | IOException e) {
+            e.printStackTrace();
+        }
+
+        return 0;
+    }
 
-            for (Element autorElement : autores) {
-                int id = Integer.parseInt(autorElement.getAttributeValue("idAutor"));
-                Autor autor = new Autor();
-                autor.setIdAutor(id);
-                autor.setNombre(autorElement.getChildText("nombre"));
-                autor.setApellidos(autorElement.getChildText("apellidos"));
-                autor.setNacionalidad(autorElement.getChildText("nacionalidad"));
+    /**
+     * Método actualizar (reemplaza los datos del autor con el mismo idAutor, conservando su posición)
+     * Si el idAutor está repetido en el archivo, se actualizan todos sus registros
+     */
+    public synchronized boolean actualizar(Autor autor) {
+        try {
+            File archivoXml = new File(rutaArchivo);
+            if (!archivoXml.exists() || archivoXml.length() == 0) {
+                return false;
+            }
 
-                autoresSet.add(autor);
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
+            List<Element> autorElements = buscarPorId(documento.getRootElement(), autor.getIdAutor());
+            if (autorElements.isEmpty()) {
+                return false;
             }
 
+            for (Element autorElement : autorElements) {
+                autorElement.getChild("nombre").setText(autor.getNombre());
+                autorElement.getChild("apellidos").setText(autor.getApellidos());
+                autorElement.getChild("nacionalidad").setText(autor.getNacionalidad());
+            }
+
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            mantenerIndice(indiceAlDia, () -> indicePorId.put(autor.getIdAutor(), elementoAAutor(autorElements.get(0))));
+            return true;
+
         } catch (JDOMException | IOException e) {
             e.printStackTrace();
         }
 
-        return autoresSet;
+        return false;
     }
 
     /**
-     * Método adicional para buscar autor por ID (útil para LibroXmlData)
+     * Método eliminar (elimina el autor con el idAutor indicado)
+     * Si el idAutor está repetido en el archivo, se eliminan todos sus registros
      */
-    public Optional<Autor> findAutorById(int idAutor) {
+    public synchronized boolean eliminar(int idAutor) {
         try {
-            // Verificar si el archivo existe o está vacío
             File archivoXml = new File(rutaArchivo);
             if (!archivoXml.exists() || archivoXml.length() == 0) {
-                return Optional.empty(); // Retornar Optional vacío si no hay archivo o está vacío
+                return false;
             }
 
-            SAXBuilder builder = new SAXBuilder();
-            Document documento = builder.build(archivoXml);
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
             Element raiz = documento.getRootElement();
+            List<Element> autorElements = buscarPorId(raiz, idAutor);
+            if (autorElements.isEmpty()) {
+                return false;
+            }
+
+            for (Element autorElement : autorElements) {
+                raiz.removeContent(autorElement);
+            }
+
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            mantenerIndice(indiceAlDia, () -> indicePorId.remove(idAutor));
+            return true;
+
+        } catch (JDOMException | IOException e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Método findAll (retorna todos los registros de autor presentes en el archivo)
+     * El método debe retornar un Set de autores
+     */
+    public synchronized Set<Autor> findAll() {
+        Set<Autor> autoresSet = new HashSet<>();
+
+        try {
+            asegurarIndice();
+
+            for (Autor autor : indicePorId.values()) {
+                autoresSet.add(copia(autor));
+            }
+
+        } catch (JDOMException | IOException e) {
+            e.printStackTrace();
+        }
+
+        return autoresSet;
+    }
+
+    /**
+     * Método findPagina (retorna una página de autores ordenada por idAutor)
+     * El cursor es el idAutor del último autor de la página anterior (null para la primera).
+     * El costo depende del tamaño de la página y no de la cantidad de autores.
+     */
+    public synchronized List<Autor> findPagina(Integer despuesDeIdAutor, int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo: " + tamanoPagina);
+        }
 
-            List<Element> autores = raiz.getChildren("autor");
+        List<Autor> pagina = new ArrayList<>();
 
-            for (Element autorElement : autores) {
-                int id = Integer.parseInt(autorElement.getAttributeValue("idAutor"));
-                if (id == idAutor) {
-                    Autor autor = new Autor();
-                    autor.setIdAutor(id);
-                    autor.setNombre(autorElement.getChildText("nombre"));
-                    autor.setApellidos(autorElement.getChildText("apellidos"));
-                    autor.setNacionalidad(autorElement.getChildText("nacionalidad"));
+        try {
+            asegurarIndice();
 
-                    return Optional.of(autor);
+            Collection<Autor> autores = despuesDeIdAutor == null
+                    ? indicePorId.values()
+                    : indicePorId.tailMap(despuesDeIdAutor, false).values();
+            for (Autor autor : autores) {
+                if (pagina.size() >= tamanoPagina) {
+                    break;
                 }
+                pagina.add(copia(autor));
+            }
+
+        } catch (JDOMException | IOException e) {
+            e.printStackTrace();
+        }
+
+        return pagina;
+    }
+
+    /**
+     * Método adicional para buscar autor por ID (útil para LibroXmlData)
+     */
+    public synchronized Optional<Autor> findAutorById(int idAutor) {
+        try {
+            asegurarIndice();
+
+            Autor autor = indicePorId.get(idAutor);
+            if (autor != null) {
+                return Optional.of(copia(autor));
             }
 
         } catch (JDOMException | IOException e) {
@@ -162,4 +262,83 @@ public class AutorXmlData {
 
         return Optional.empty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Método para buscar los elementos de un autor por ID (insertar no impide IDs repetidos)
+     */
+    private static List<Element> buscarPorId(Element raiz, int idAutor) {
+        List<Element> encontrados = new ArrayList<>();
+        for (Element autorElement : raiz.getChildren("autor")) {
+            if (Integer.parseInt(autorElement.getAttributeValue("idAutor")) == idAutor) {
+                encontrados.add(autorElement);
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Método para cargar el índice si aún no existe o si el archivo cambió fuera de esta instancia
+     */
+    private void asegurarIndice() throws JDOMException, IOException {
+        if (indiceAlDia()) {
+            return;
+        }
+
+        indicePorId = new TreeMap<>();
+
+        File archivoXml = new File(rutaArchivo);
+        if (archivoXml.exists() && archivoXml.length() > 0) {
+            for (Element autorElement : XmlArchivos.leer(archivoXml).getRootElement().getChildren("autor")) {
+                Autor autor = elementoAAutor(autorElement);
+                // Si un ID está repetido, gana el primero del archivo
+                indicePorId.putIfAbsent(autor.getIdAutor(), autor);
+            }
+        }
+        tomarFirma();
+    }
+
+    private boolean indiceAlDia() {
+        return indicePorId != null && Objects.equals(XmlArchivos.firma(new File(rutaArchivo)), firma);
+    }
+
+    private void tomarFirma() {
+        firma = XmlArchivos.firma(new File(rutaArchivo));
+    }
+
+    /**
+     * Método para mantener el índice tras una escritura propia, sin recargar el archivo
+     * Si el índice no estaba al día antes de escribir, se descarta y se recargará al usarse
+     */
+    private void mantenerIndice(boolean indiceAlDia, Runnable cambio) {
+        if (!indiceAlDia) {
+            indicePorId = null;
+            return;
+        }
+
+        cambio.run();
+        tomarFirma();
+    }
+
+    private static Element autorAElemento(Autor autor) {
+        Element elementoAutor = new Element("autor");
+        elementoAutor.setAttribute("idAutor", String.valueOf(autor.getIdAutor()));
+
+        elementoAutor.addContent(new Element("nombre").setText(autor.getNombre()));
+        elementoAutor.addContent(new Element("apellidos").setText(autor.getApellidos()));
+        elementoAutor.addContent(new Element("nacionalidad").setText(autor.getNacionalidad()));
+        return elementoAutor;
+    }
+
+    private static Autor elementoAAutor(Element autorElement) {
+        Autor autor = new Autor();
+        autor.setIdAutor(Integer.parseInt(autorElement.getAttributeValue("idAutor")));
+        autor.setNombre(autorElement.getChildText("nombre"));
+        autor.setApellidos(autorElement.getChildText("apellidos"));
+        autor.setNacionalidad(autorElement.getChildText("nacionalidad"));
+        return autor;
+    }
+
+    private static Autor copia(Autor autor) {
+        return new Autor(autor.getIdAutor(), autor.getNombre(), autor.getApellidos(), autor.getNacionalidad());
+    }
+}
@@ -5,37 +5,48 @@ import com.vialectoris.libreria.core.domain.Libro;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
 
 public class LibroXmlData {
     private String rutaArchivo;
     private AutorXmlData autorXmlData; // Para obtener datos completos de autores
+    private boolean comprimido; // Guardar el archivo en formato compacto comprimido con gzip
+
+    // Índice ordenado por título e ISBN; se carga al primer uso y se mantiene en cada escritura
+    private TreeMap<String, Libro> indicePorTitulo;
+    private Map<String, String> clavePorIsbn;
+    private XmlArchivos.Firma firma;
 
     /**
      * Constructor que verifica si el archivo existe y lo crea si no
      */
     public LibroXmlData(String rutaArchivo) {
-        this.rutaArchivo = rutaArchivo;
-        File archivo = new File(rutaArchivo);
-
-        if (!archivo.exists()) {
-            crearArchivoVacio();
-        }
+        this(rutaArchivo, null, false);
     }
 
     /**
      * Constructor que permite inyectar AutorXmlData
      */
     public LibroXmlData(String rutaArchivo, AutorXmlData autorXmlData) {
-        this(rutaArchivo);
+        this(rutaArchivo, autorXmlData, false);
+    }
+
+    /**
+     * Constructor que permite guardar el archivo comprimido
+     * Un archivo existente que ya esté comprimido se sigue guardando comprimido
+     */
+    public LibroXmlData(String rutaArchivo, AutorXmlData autorXmlData, boolean comprimido) {
+        this.rutaArchivo = rutaArchivo;
         this.autorXmlData = autorXmlData;
+        File archivo = new File(rutaArchivo);
+        this.comprimido = comprimido || XmlArchivos.estaComprimido(archivo);
+
+        if (!archivo.exists()) {
+            crearArchivoVacio();
+        }
     }
 
     /**
@@ -43,20 +54,10 @@ public class LibroXmlData {
      */
     private void crearArchivoVacio() {
         try {
-            // Asegurarse de que el directorio existe
-            File archivo = new File(rutaArchivo);
-            File directorio = archivo.getParentFile();
-            if (directorio != null && !directorio.exists()) {
-                directorio.mkdirs();
-            }
-
-            // Crear el archivo XML con estructura básica
             Element raiz = new Element("libros");
             Document documento = new Document(raiz);
 
-            XMLOutputter xmlOutput = new XMLOutputter();
-            xmlOutput.setFormat(Format.getPrettyFormat());
-            xmlOutput.output(documento, new FileOutputStream(rutaArchivo));
+            XmlArchivos.escribir(documento, new File(rutaArchivo), comprimido);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -65,7 +66,7 @@ public class LibroXmlData {
     /**
      * Método insertar (ordenado por título)
      */
-    public void insertar(Libro libro) {
+    public synchronized void insertar(Libro libro) {
         try {
             // Verificar si el archivo existe, si no, crearlo
             File archivoXml = new File(rutaArchivo);
@@ -74,8 +75,8 @@ public class LibroXmlData {
             }
 
             // Cargar el documento existente
-            SAXBuilder builder = new SAXBuilder();
-            Document documento = builder.build(archivoXml);
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
             Element raiz = documento.getRootElement();
 
             // Verificar si ya existe un libro con este ISBN
@@ -89,101 +90,156 @@ public class LibroXmlData {
             }
 
             // Crear elemento para el nuevo libro
-            Element elementoLibro = new Element("libro");
-            elementoLibro.setAttribute("ISBN", libro.getIsbn());
+            Element elementoLibro = libroAElemento(libro);
+
+            // Insertar el libro en la posición correcta según el título
+            raiz.addContent(posicionPorTitulo(raiz, libro.getTitulo()), elementoLibro);
 
-            elementoLibro.addContent(new Element("titulo").setText(libro.getTitulo()));
-            elementoLibro.addContent(new Element("annoPublicacion").setText(String.valueOf(libro.getAnnoPublicacion())));
+            // Guardar el documento
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            mantenerIndice(indiceAlDia, null, elementoLibro);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-            // Añadir autores
-            Element idsAutores = new Element("idsAutores");
-            for (Autor autor : libro.getAutores()) {
-                idsAutores.addContent(new Element("idAutor").setText(String.valueOf(autor.getIdAutor())));
+    /**
+     * Método insertarLote (inserta varios libros con una sola lectura y escritura del archivo)
+     * El lote se ordena por título y se mezcla con los libros existentes; los ISBN que ya
+     * existen (o que se repiten en el lote) no se insertan. Retorna la cantidad insertada.
+     */
+    public synchronized int insertarLote(Collection<Libro> libros) {
+        try {
+            File archivoXml = new File(rutaArchivo);
+            if (!archivoXml.exists() || archivoXml.length() == 0) {
+                crearArchivoVacio();
             }
-            elementoLibro.addContent(idsAutores);
 
-            // Encontrar la posición correcta para insertar basada en el título
-            int posicionInsercion = 0;
-            boolean insertado = false;
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
+            Element raiz = documento.getRootElement();
 
-            for (int i = 0; i < librosExistentes.size(); i++) {
-                String tituloExistente = librosExistentes.get(i).getChildText("titulo");
+            List<Element> existentes = new ArrayList<>(raiz.getChildren("libro"));
+            Set<String> isbns = new HashSet<>();
+            for (Element libroExistente : existentes) {
+                isbns.add(libroExistente.getAttributeValue("ISBN"));
+            }
 
-                // Si el título del nuevo libro es alfabéticamente menor, insertar aquí
-                if (tituloExistente != null && libro.getTitulo().compareTo(tituloExistente) < 0) {
-                    posicionInsercion = i;
-                    insertado = true;
-                    break;
+            // Ordenamiento estable: con títulos iguales se respeta el orden de llegada, como en insertar
+            List<Element> nuevos = new ArrayList<>();
+            for (Libro libro : libros) {
+                if (isbns.add(libro.getIsbn())) {
+                    nuevos.add(libroAElemento(libro));
                 }
-                posicionInsercion = i + 1;
+            }
+            if (nuevos.isEmpty()) {
+                return 0;
+            }
+            nuevos.sort(Comparator.comparing((Element libroElement) -> libroElement.getChildText("titulo")));
+
+            // Mezclar ambas listas ordenadas; con títulos iguales van primero los existentes
+            raiz.removeContent();
+            int i = 0;
+            int j = 0;
+            while (i < existentes.size() || j < nuevos.size()) {
+                boolean tomarNuevo = i >= existentes.size()
+                        || (j < nuevos.size() && existentes.get(i).getChildText("titulo") != null
+                        && nuevos.get(j).getChildText("titulo").compareTo(existentes.get(i).getChildText("titulo")) < 0);
+                raiz.addContent(tomarNuevo ? nuevos.get(j++) : existentes.get(i++));
             }
 
-            // Insertar el libro en la posición correcta
-            raiz.addContent(posicionInsercion, elementoLibro);
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            for (Element elementoLibro : nuevos) {
+                mantenerIndice(indiceAlDia, null, elementoLibro);
+            }
+            return nuevos.size();
 
-            // Guardar el documento
-            XMLOutputter xmlOutput = new XMLOutputter();
-            xmlOutput.setFormat(Format.getPrettyFormat());
-            xmlOutput.output(documento, new FileOutputStream(rutaArchivo));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Método actualizar (reemplaza el libro con el mismo ISBN)
+     * Si cambia el título, el libro se mueve para conservar el orden por título
+     */
+    public synchronized boolean actualizar(Libro libro) {
+        try {
+            File archivoXml = new File(rutaArchivo);
+            if (!archivoXml.exists() || archivoXml.length() == 0) {
+                return false;
+            }
+
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
+            Element raiz = documento.getRootElement();
+
+            Element libroExistente = buscarPorIsbn(raiz, libro.getIsbn());
+            if (libroExistente == null) {
+                return false;
+            }
+
+            // Retirar la versión anterior e insertar la nueva en su posición por título
+            Element elementoLibro = libroAElemento(libro);
+            raiz.removeContent(libroExistente);
+            raiz.addContent(posicionPorTitulo(raiz, libro.getTitulo()), elementoLibro);
+
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            mantenerIndice(indiceAlDia, libro.getIsbn(), elementoLibro);
+            return true;
 
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        return false;
     }
 
     /**
-     * Método findLibroByIsbn (retorna un único registro)
+     * Método eliminar (elimina el libro con el ISBN indicado)
      */
-    public Optional<Libro> findLibroByIsbn(String isbn) {
+    public synchronized boolean eliminar(String isbn) {
         try {
             File archivoXml = new File(rutaArchivo);
             if (!archivoXml.exists() || archivoXml.length() == 0) {
-                return Optional.empty();
+                return false;
             }
 
-            SAXBuilder builder = new SAXBuilder();
-            Document documento = builder.build(archivoXml);
+            boolean indiceAlDia = indiceAlDia();
+            Document documento = XmlArchivos.leer(archivoXml);
             Element raiz = documento.getRootElement();
 
-            List<Element> libros = raiz.getChildren("libro");
+            Element libroExistente = buscarPorIsbn(raiz, isbn);
+            if (libroExistente == null) {
+                return false;
+            }
 
-            for (Element libroElement : libros) {
-                String isbnExistente = libroElement.getAttributeValue("ISBN");
-                if (isbnExistente != null && isbnExistente.equals(isbn)) {
-                    Libro libro = new Libro();
-                    libro.setIsbn(isbn);
-                    libro.setTitulo(libroElement.getChildText("titulo"));
-                    libro.setAnnoPublicacion(Integer.parseInt(libroElement.getChildText("annoPublicacion")));
-
-                    // Obtener autores
-                    Element idsAutoresElement = libroElement.getChild("idsAutores");
-                    if (idsAutoresElement != null) {
-                        List<Element> idAutorElements = idsAutoresElement.getChildren("idAutor");
-                        for (Element idAutorElement : idAutorElements) {
-                            int idAutor = Integer.parseInt(idAutorElement.getText());
-
-                            if (autorXmlData != null) {
-                                // Obtener datos completos del autor
-                                Optional<Autor> autorCompleto = autorXmlData.findAutorById(idAutor);
-                                if (autorCompleto.isPresent()) {
-                                    libro.addAutor(autorCompleto.get());
-                                } else {
-                                    // Si no hay información, crear un autor básico
-                                    Autor autorTemp = new Autor();
-                                    autorTemp.setIdAutor(idAutor);
-                                    libro.addAutor(autorTemp);
-                                }
-                            } else {
-                                // Si no hay autorXmlData, crear un autor básico
-                                Autor autorTemp = new Autor();
-                                autorTemp.setIdAutor(idAutor);
-                                libro.addAutor(autorTemp);
-                            }
-                        }
-                    }
+            raiz.removeContent(libroExistente);
 
-                    return Optional.of(libro);
-                }
+            XmlArchivos.escribir(documento, archivoXml, comprimido);
+            mantenerIndice(indiceAlDia, isbn, null);
+            return true;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Método findLibroByIsbn (retorna un único registro, resuelto desde el índice)
+     */
+    public synchronized Optional<Libro> findLibroByIsbn(String isbn) {
+        try {
+            asegurarIndice();
+
+            String clave = clavePorIsbn.get(isbn);
+            if (clave != null) {
+                return Optional.of(copiaConAutores(indicePorTitulo.get(clave)));
             }
 
         } catch (Exception e) {
@@ -193,10 +249,43 @@ public class LibroXmlData {
         return Optional.empty();
     }
 
+    /**
+     * Método findPagina (retorna una página de libros ordenada por título e ISBN)
+     * El cursor es el título e ISBN del último libro de la página anterior; con un
+     * título null se retorna la primera página. El costo depende del tamaño de la
+     * página y no del tamaño del catálogo.
+     */
+    public synchronized List<Libro> findPagina(String despuesDeTitulo, String despuesDeIsbn, int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo: " + tamanoPagina);
+        }
+
+        List<Libro> pagina = new ArrayList<>();
+
+        try {
+            asegurarIndice();
+
+            Collection<Libro> libros = despuesDeTitulo == null
+                    ? indicePorTitulo.values()
+                    : indicePorTitulo.tailMap(clave(despuesDeTitulo, despuesDeIsbn), false).values();
+            for (Libro libro : libros) {
+                if (pagina.size() >= tamanoPagina) {
+                    break;
+                }
+                pagina.add(copiaConAutores(libro));
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return pagina;
+    }
+
     /**
      * Método findLibrosByIdAutor (retorna varios registros)
      */
-    public Map<String, Libro> findLibrosByIdAutor(int idAutor) {
+    public synchronized Map<String, Libro> findLibrosByIdAutor(int idAutor) {
         Map<String, Libro> librosMap = new HashMap<>();
 
         try {
@@ -206,8 +295,7 @@ public class LibroXmlData {
                 return librosMap; // Retornar mapa vacío si no hay archivo
             }
 
-            SAXBuilder builder = new SAXBuilder();
-            Document documento = builder.build(archivoXml);
+            Document documento = XmlArchivos.leer(archivoXml);
             Element raiz = documento.getRootElement();
 
             List<Element> libros = raiz.getChildren("libro");
@@ -230,33 +318,8 @@ public class LibroXmlData {
 
                     // Si el libro contiene al autor solicitado
                     if (autorEncontrado) {
-                        String isbn = libroElement.getAttributeValue("ISBN");
-                        Libro libro = new Libro();
-                        libro.setIsbn(isbn);
-                        libro.setTitulo(libroElement.getChildText("titulo"));
-                        libro.setAnnoPublicacion(Integer.parseInt(libroElement.getChildText("annoPublicacion")));
-
-                        // Añadir todos los autores del libro
-                        for (Element idAutorElement : idsAutoresElement.getChildren("idAutor")) {
-                            int autorId = Integer.parseInt(idAutorElement.getText());
-
-                            if (autorXmlData != null) {
-                                Optional<Autor> autorCompleto = autorXmlData.findAutorById(autorId);
-                                if (autorCompleto.isPresent()) {
-                                    libro.addAutor(autorCompleto.get());
-                                } else {
-                                    Autor autorTemp = new Autor();
-                                    autorTemp.setIdAutor(autorId);
-                                    libro.addAutor(autorTemp);
-                                }
-                            } else {
-                                Autor autorTemp = new Autor();
-                                autorTemp.setIdAutor(autorId);
-                                libro.addAutor(autorTemp);
-                            }
-                        }
-
-                        librosMap.put(isbn, libro);
+                        Libro libro = elementoALibro(libroElement, autorXmlData);
+                        librosMap.put(libro.getIsbn(), libro);
                     }
                 }
             }
@@ -267,4 +330,166 @@ public class LibroXmlData {
 
         return librosMap;
     }
-}
\ No newline at end of file
+
+    /**
+     * Método para convertir un libro en su elemento XML
+     */
+    static Element libroAElemento(Libro libro) {
+        Element elementoLibro = new Element("libro");
+        elementoLibro.setAttribute("ISBN", libro.getIsbn());
+
+        elementoLibro.addContent(new Element("titulo").setText(libro.getTitulo()));
+        elementoLibro.addContent(new Element("annoPublicacion").setText(String.valueOf(libro.getAnnoPublicacion())));
+
+        // Añadir autores
+        Element idsAutores = new Element("idsAutores");
+        for (Autor autor : libro.getAutores()) {
+            idsAutores.addContent(new Element("idAutor").setText(String.valueOf(autor.getIdAutor())));
+        }
+        elementoLibro.addContent(idsAutores);
+
+        return elementoLibro;
+    }
+
+    /**
+     * Método para reconstruir un libro a partir de su elemento XML
+     * Si se indica autorXmlData se obtienen los datos completos de cada autor
+     */
+    static Libro elementoALibro(Element libroElement, AutorXmlData autorXmlData) {
+        Libro libro = new Libro();
+        libro.setIsbn(libroElement.getAttributeValue("ISBN"));
+        libro.setTitulo(libroElement.getChildText("titulo"));
+        libro.setAnnoPublicacion(Integer.parseInt(libroElement.getChildText("annoPublicacion")));
+
+        // Obtener autores
+        Element idsAutoresElement = libroElement.getChild("idsAutores");
+        if (idsAutoresElement != null) {
+            for (Element idAutorElement : idsAutoresElement.getChildren("idAutor")) {
+                libro.addAutor(resolverAutor(Integer.parseInt(idAutorElement.getText()), autorXmlData));
+            }
+        }
+
+        return libro;
+    }
+
+    /**
+     * Método para obtener los datos completos de un autor
+     * Si no hay información, se crea un autor básico con solo su ID
+     */
+    static Autor resolverAutor(int idAutor, AutorXmlData autorXmlData) {
+        Optional<Autor> autorCompleto = autorXmlData != null
+                ? autorXmlData.findAutorById(idAutor)
+                : Optional.empty();
+        if (autorCompleto.isPresent()) {
+            return autorCompleto.get();
+        }
+
+        Autor autorTemp = new Autor();
+        autorTemp.setIdAutor(idAutor);
+        return autorTemp;
+    }
+
+    /**
+     * Clave de ordenamiento: título y luego ISBN (el carácter nulo no puede aparecer en XML)
+     */
+    static String clave(String titulo, String isbn) {
+        return (titulo == null ? "" : titulo) + '\u0000' + (isbn == null ? "" : isbn);
+    }
+
+    /**
+     * Método para cargar el índice si aún no existe o si el archivo cambió fuera de esta instancia
+     */
+    private void asegurarIndice() throws JDOMException, IOException {
+        if (indiceAlDia()) {
+            return;
+        }
+
+        indicePorTitulo = new TreeMap<>();
+        clavePorIsbn = new HashMap<>();
+
+        File archivoXml = new File(rutaArchivo);
+        if (archivoXml.exists() && archivoXml.length() > 0) {
+            for (Element libroElement : XmlArchivos.leer(archivoXml).getRootElement().getChildren("libro")) {
+                indexar(libroElement);
+            }
+        }
+        tomarFirma();
+    }
+
+    private boolean indiceAlDia() {
+        return indicePorTitulo != null && Objects.equals(XmlArchivos.firma(new File(rutaArchivo)), firma);
+    }
+
+    private void tomarFirma() {
+        firma = XmlArchivos.firma(new File(rutaArchivo));
+    }
+
+    /**
+     * Método para mantener el índice tras una escritura propia, sin recargar el archivo
+     * Si el índice no estaba al día antes de escribir, se descarta y se recargará al usarse
+     */
+    private void mantenerIndice(boolean indiceAlDia, String isbnRetirado, Element elementoNuevo) {
+        if (!indiceAlDia) {
+            indicePorTitulo = null;
+            return;
+        }
+
+        if (isbnRetirado != null) {
+            String clave = clavePorIsbn.remove(isbnRetirado);
+            if (clave != null) {
+                indicePorTitulo.remove(clave);
+            }
+        }
+        if (elementoNuevo != null) {
+            indexar(elementoNuevo);
+        }
+        tomarFirma();
+    }
+
+    /**
+     * El índice guarda los libros con autores básicos (solo ID); se completan al leerlos
+     */
+    private void indexar(Element libroElement) {
+        Libro libro = elementoALibro(libroElement, null);
+        String clave = clave(libro.getTitulo(), libro.getIsbn());
+        indicePorTitulo.put(clave, libro);
+        clavePorIsbn.put(libro.getIsbn(), clave);
+    }
+
+    private Libro copiaConAutores(Libro indexado) {
+        Libro libro = new Libro(indexado.getIsbn(), indexado.getTitulo(), indexado.getAnnoPublicacion());
+        for (Autor autor : indexado.getAutores()) {
+            libro.addAutor(resolverAutor(autor.getIdAutor(), autorXmlData));
+        }
+        return libro;
+    }
+
+    /**
+     * Método para buscar el elemento de un libro por ISBN
+     */
+    private static Element buscarPorIsbn(Element raiz, String isbn) {
+        for (Element libroElement : raiz.getChildren("libro")) {
+            if (isbn.equals(libroElement.getAttributeValue("ISBN"))) {
+                return libroElement;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Método para encontrar la posición de inserción basada en el título
+     * (después de los libros con un título igual o menor)
+     */
+    private static int posicionPorTitulo(Element raiz, String titulo) {
+        List<Element> libros = raiz.getChildren("libro");
+        for (Element libroElement : libros) {
+            String tituloExistente = libroElement.getChildText("titulo");
+
+            // Si el título del nuevo libro es alfabéticamente menor, insertar aquí
+            if (tituloExistente != null && titulo.compareTo(tituloExistente) < 0) {
+                return raiz.indexOf(libroElement);
+            }
+        }
+        return raiz.getContentSize();
+    }
+}
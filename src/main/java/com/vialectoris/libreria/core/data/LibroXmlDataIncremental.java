@@ -0,0 +1,625 @@
+package com.vialectoris.libreria.core.data;
+
+import com.vialectoris.libreria.core.domain.Libro;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Almacén de libros con escritura incremental (estilo LSM)
+ * Las inserciones no reescriben el archivo base: se acumulan en runs pequeños
+ * ordenados por título que se guardan junto al archivo base. Las lecturas
+ * combinan el archivo base y los runs con una mezcla de k vías, por lo que el
+ * resultado sigue saliendo ordenado por título. Un compactador integra
+ * periódicamente los runs en un nuevo archivo base.
+ * Las actualizaciones escriben la nueva versión en el run activo y las
+ * eliminaciones escriben una marca de borrado; el índice en memoria indica qué
+ * versión es la vigente, así ninguna de las dos reescribe el archivo base.
+ */
+public class LibroXmlDataIncremental {
+    public static final int TAMANO_RUN_POR_DEFECTO = 64;
+    private static final long GENERACION_BASE = 0;
+
+    private final String rutaArchivo;
+    private final int tamanoRun;
+    private final boolean comprimido; // Guardar base y runs en formato compacto comprimido con gzip
+    private AutorXmlData autorXmlData; // Para obtener datos completos de autores
+
+    // Runs sellados (inmutables en disco), del más antiguo al más reciente
+    private final List<Run> runs = new ArrayList<>();
+    // Run activo: recibe las inserciones, ordenado por título e ISBN
+    private TreeMap<String, Element> runActivo = new TreeMap<>();
+    private long generacionActiva;
+    private int tamanoBase;
+    // Contenido del archivo base y de los runs sellados; solo cambian al fusionar o compactar
+    private final Map<Long, List<Element>> librosPorGeneracion = new HashMap<>();
+
+    // Índice ISBN -> versión vigente del libro: su elemento y la generación (base o run) que lo contiene
+    private final Map<String, Vigente> vigentePorIsbn = new HashMap<>();
+    // ISBN -> generación de la marca de borrado más reciente que aún no llega al archivo base
+    private final Map<String, Long> generacionEliminados = new HashMap<>();
+
+    private ScheduledExecutorService compactador;
+
+    /**
+     * Constructor que abre (o crea) el archivo base y los runs existentes
+     */
+    public LibroXmlDataIncremental(String rutaArchivo) {
+        this(rutaArchivo, null, TAMANO_RUN_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que permite inyectar AutorXmlData
+     */
+    public LibroXmlDataIncremental(String rutaArchivo, AutorXmlData autorXmlData) {
+        this(rutaArchivo, autorXmlData, TAMANO_RUN_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que permite indicar la cantidad de libros por run
+     */
+    public LibroXmlDataIncremental(String rutaArchivo, AutorXmlData autorXmlData, int tamanoRun) {
+        this(rutaArchivo, autorXmlData, tamanoRun, false);
+    }
+
+    /**
+     * Constructor que permite guardar el archivo base y los runs comprimidos
+     * Un archivo base existente que ya esté comprimido se sigue guardando comprimido
+     */
+    public LibroXmlDataIncremental(String rutaArchivo, AutorXmlData autorXmlData, int tamanoRun, boolean comprimido) {
+        if (tamanoRun <= 0) {
+            throw new IllegalArgumentException("El tamaño del run debe ser positivo: " + tamanoRun);
+        }
+        this.rutaArchivo = rutaArchivo;
+        this.autorXmlData = autorXmlData;
+        this.tamanoRun = tamanoRun;
+        this.comprimido = comprimido || XmlArchivos.estaComprimido(new File(rutaArchivo));
+
+        try {
+            cargar();
+        } catch (JDOMException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Método para cargar el índice a partir del archivo base y de los runs en disco
+     */
+    private void cargar() throws JDOMException, IOException {
+        File archivoBase = new File(rutaArchivo);
+        if (!archivoBase.exists() || archivoBase.length() == 0) {
+            XmlArchivos.escribir(new Document(new Element("libros")), archivoBase, comprimido);
+        }
+
+        List<Element> librosBase = ordenarPorClave(XmlArchivos.leer(archivoBase).getRootElement().getChildren("libro"));
+        for (Element libroElement : librosBase) {
+            vigentePorIsbn.put(libroElement.getAttributeValue("ISBN"), new Vigente(GENERACION_BASE, libroElement));
+        }
+        tamanoBase = librosBase.size();
+        librosPorGeneracion.put(GENERACION_BASE, librosBase);
+
+        // Los runs se recorren del más antiguo al más reciente: la última versión gana
+        long ultimaGeneracion = GENERACION_BASE;
+        for (long generacion : listarGeneraciones()) {
+            List<Element> libros = XmlArchivos.leer(archivoRun(generacion)).getRootElement().getChildren("libro");
+            for (Element libroElement : libros) {
+                registrar(libroElement, generacion);
+            }
+            runs.add(new Run(generacion, libros.size()));
+            librosPorGeneracion.put(generacion, libros);
+            ultimaGeneracion = generacion;
+        }
+        generacionActiva = ultimaGeneracion + 1;
+    }
+
+    /**
+     * Método insertar (el libro se añade al run activo, sin reescribir el archivo base)
+     */
+    public synchronized void insertar(Libro libro) {
+        try {
+            // Verificar si ya existe un libro con este ISBN
+            if (vigentePorIsbn.containsKey(libro.getIsbn())) {
+                return;
+            }
+
+            escribirEnRunActivo(LibroXmlData.libroAElemento(libro));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Método actualizar (la nueva versión se escribe en el run activo)
+     * Si cambia el título, la mezcla por título la ubica en su nueva posición
+     */
+    public synchronized boolean actualizar(Libro libro) {
+        try {
+            if (!vigentePorIsbn.containsKey(libro.getIsbn())) {
+                return false;
+            }
+
+            escribirEnRunActivo(LibroXmlData.libroAElemento(libro));
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Método eliminar (escribe una marca de borrado en el run activo)
+     */
+    public synchronized boolean eliminar(String isbn) {
+        try {
+            if (!vigentePorIsbn.containsKey(isbn)) {
+                return false;
+            }
+
+            Element marcaBorrado = new Element("libro");
+            marcaBorrado.setAttribute("ISBN", isbn);
+            marcaBorrado.setAttribute("eliminado", "true");
+            escribirEnRunActivo(marcaBorrado);
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Método findLibroByIsbn (el índice apunta directo al elemento vigente, sin recorrer archivos)
+     */
+    public synchronized Optional<Libro> findLibroByIsbn(String isbn) {
+        try {
+            Vigente vigente = vigentePorIsbn.get(isbn);
+            if (vigente != null) {
+                return Optional.of(LibroXmlData.elementoALibro(vigente.libro(), autorXmlData));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Método findLibrosByIdAutor (retorna varios registros)
+     */
+    public synchronized Map<String, Libro> findLibrosByIdAutor(int idAutor) {
+        Map<String, Libro> librosMap = new HashMap<>();
+
+        try {
+            for (Element libroElement : mezclar(fuentesCompletas(), false, null, Integer.MAX_VALUE)) {
+                if (contieneAutor(libroElement, idAutor)) {
+                    Libro libro = LibroXmlData.elementoALibro(libroElement, autorXmlData);
+                    librosMap.put(libro.getIsbn(), libro);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return librosMap;
+    }
+
+    /**
+     * Método findAll (retorna todos los libros ordenados por título)
+     */
+    public synchronized List<Libro> findAll() {
+        List<Libro> libros = new ArrayList<>();
+
+        try {
+            for (Element libroElement : mezclar(fuentesCompletas(), false, null, Integer.MAX_VALUE)) {
+                libros.add(LibroXmlData.elementoALibro(libroElement, autorXmlData));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return libros;
+    }
+
+    /**
+     * Método findPagina (retorna una página de libros ordenada por título e ISBN)
+     * El cursor es el título e ISBN del último libro de la página anterior; con un
+     * título null se retorna la primera página. Cada fuente se posiciona en el cursor
+     * con búsqueda binaria y la mezcla se detiene al completar la página.
+     */
+    public synchronized List<Libro> findPagina(String despuesDeTitulo, String despuesDeIsbn, int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo: " + tamanoPagina);
+        }
+
+        List<Libro> pagina = new ArrayList<>();
+
+        try {
+            String desde = despuesDeTitulo == null ? null : LibroXmlData.clave(despuesDeTitulo, despuesDeIsbn);
+            for (Element libroElement : mezclar(fuentesCompletas(), false, desde, tamanoPagina)) {
+                pagina.add(LibroXmlData.elementoALibro(libroElement, autorXmlData));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return pagina;
+    }
+
+    /**
+     * Método compactar (integra todos los runs en un nuevo archivo base)
+     */
+    public synchronized void compactar() {
+        try {
+            sellarRunActivo();
+            compactarRuns();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Método para iniciar la compactación periódica en segundo plano
+     */
+    public synchronized void iniciarCompactador(long periodo, TimeUnit unidad) {
+        if (compactador != null) {
+            return;
+        }
+
+        compactador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "compactador-libros");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        compactador.scheduleWithFixedDelay(this::compactar, periodo, periodo, unidad);
+    }
+
+    /**
+     * Método para detener el compactador en segundo plano
+     */
+    public void cerrar() {
+        ScheduledExecutorService actual;
+        synchronized (this) {
+            actual = compactador;
+            compactador = null;
+        }
+
+        if (actual != null) {
+            actual.shutdown();
+            try {
+                actual.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Método para escribir un libro o una marca de borrado en el run activo
+     * El run activo guarda a lo sumo un elemento por ISBN: el más reciente
+     */
+    private void escribirEnRunActivo(Element elementoLibro) throws JDOMException, IOException {
+        String isbn = elementoLibro.getAttributeValue("ISBN");
+        runActivo.values().removeIf(existente -> isbn.equals(existente.getAttributeValue("ISBN")));
+        runActivo.put(clave(elementoLibro), elementoLibro);
+        registrar(elementoLibro, generacionActiva);
+        guardarRunActivo();
+
+        if (runActivo.size() >= tamanoRun) {
+            sellarRunActivo();
+            fusionarRuns();
+        }
+    }
+
+    /**
+     * Método para registrar en el índice la versión más reciente de un libro
+     */
+    private void registrar(Element libroElement, long generacion) {
+        String isbn = libroElement.getAttributeValue("ISBN");
+        if (esMarcaBorrado(libroElement)) {
+            vigentePorIsbn.remove(isbn);
+            generacionEliminados.put(isbn, generacion);
+        } else {
+            vigentePorIsbn.put(isbn, new Vigente(generacion, libroElement));
+            generacionEliminados.remove(isbn);
+        }
+    }
+
+    /**
+     * Método para reescribir el run activo (es pequeño, su costo está acotado por tamanoRun)
+     */
+    private void guardarRunActivo() throws IOException {
+        Element raiz = new Element("libros");
+        for (Element libroElement : runActivo.values()) {
+            raiz.addContent(libroElement.clone());
+        }
+        XmlArchivos.escribir(new Document(raiz), archivoRun(generacionActiva), comprimido);
+    }
+
+    /**
+     * Método para cerrar el run activo y abrir uno nuevo
+     */
+    private void sellarRunActivo() {
+        if (runActivo.isEmpty()) {
+            return;
+        }
+        runs.add(new Run(generacionActiva, runActivo.size()));
+        librosPorGeneracion.put(generacionActiva, new ArrayList<>(runActivo.values()));
+        runActivo = new TreeMap<>();
+        generacionActiva++;
+    }
+
+    /**
+     * Método para fusionar runs por niveles
+     * Se fusionan los dos runs más recientes mientras el anterior no sea más grande,
+     * así cada libro se reescribe O(log N) veces. Cuando el run más antiguo alcanza
+     * el tamaño del archivo base, se integra todo en un nuevo archivo base.
+     */
+    private void fusionarRuns() throws JDOMException, IOException {
+        while (runs.size() >= 2) {
+            Run reciente = runs.get(runs.size() - 1);
+            Run anterior = runs.get(runs.size() - 2);
+            if (anterior.tamano > reciente.tamano) {
+                break;
+            }
+
+            // Las marcas de borrado se conservan: el archivo base aún puede tener el libro
+            List<Element> fusionados = mezclar(List.of(fuente(anterior.generacion), fuente(reciente.generacion)), true, null, Integer.MAX_VALUE);
+
+            // Primero se reemplaza el run reciente y luego se elimina el anterior:
+            // si el proceso se interrumpe, al recargar gana la versión más reciente
+            XmlArchivos.escribir(documento(fusionados), archivoRun(reciente.generacion), comprimido);
+            for (Element libroElement : fusionados) {
+                registrar(libroElement, reciente.generacion);
+            }
+            archivoRun(anterior.generacion).delete();
+            librosPorGeneracion.remove(anterior.generacion);
+            librosPorGeneracion.put(reciente.generacion, fusionados);
+
+            runs.remove(runs.size() - 1);
+            runs.set(runs.size() - 1, new Run(reciente.generacion, fusionados.size()));
+        }
+
+        if (!runs.isEmpty() && runs.get(0).tamano >= tamanoBase) {
+            compactarRuns();
+        }
+    }
+
+    /**
+     * Método para integrar los runs sellados en un nuevo archivo base
+     */
+    private void compactarRuns() throws JDOMException, IOException {
+        if (runs.isEmpty()) {
+            return;
+        }
+
+        List<Fuente> fuentes = new ArrayList<>();
+        fuentes.add(fuente(GENERACION_BASE));
+        for (Run run : runs) {
+            fuentes.add(fuente(run.generacion));
+        }
+        List<Element> fusionados = mezclar(fuentes, false, null, Integer.MAX_VALUE);
+
+        XmlArchivos.escribir(documento(fusionados), new File(rutaArchivo), comprimido);
+        for (Element libroElement : fusionados) {
+            vigentePorIsbn.put(libroElement.getAttributeValue("ISBN"), new Vigente(GENERACION_BASE, libroElement));
+        }
+        for (Run run : runs) {
+            archivoRun(run.generacion).delete();
+            librosPorGeneracion.remove(run.generacion);
+        }
+        librosPorGeneracion.put(GENERACION_BASE, fusionados);
+
+        // El archivo base ya no contiene los libros eliminados
+        generacionEliminados.clear();
+        tamanoBase = fusionados.size();
+        runs.clear();
+    }
+
+    /**
+     * Método de mezcla de k vías
+     * Cada fuente está ordenada por título e ISBN; solo se conservan los libros cuya
+     * versión vigente (según el índice) pertenece a la fuente de la que provienen,
+     * y opcionalmente las marcas de borrado más recientes. La mezcla empieza después
+     * de la clave desde (si no es null) y se detiene al reunir limite elementos.
+     */
+    private List<Element> mezclar(List<Fuente> fuentes, boolean conservarEliminados, String desde, int limite) {
+        List<Element> resultado = new ArrayList<>();
+        PriorityQueue<Cursor> cola = new PriorityQueue<>(Comparator.comparing((Cursor cursor) -> cursor.clave));
+
+        for (Fuente fuente : fuentes) {
+            int posicion = desde == null ? 0 : primeraPosicionDespuesDe(fuente.libros, desde);
+            if (posicion < fuente.libros.size()) {
+                cola.add(new Cursor(fuente, posicion));
+            }
+        }
+
+        while (!cola.isEmpty() && resultado.size() < limite) {
+            Cursor cursor = cola.poll();
+            Element libroElement = cursor.actual();
+            String isbn = libroElement.getAttributeValue("ISBN");
+            Long generacion;
+            if (esMarcaBorrado(libroElement)) {
+                generacion = conservarEliminados ? generacionEliminados.get(isbn) : null;
+            } else {
+                Vigente vigente = vigentePorIsbn.get(isbn);
+                generacion = vigente == null ? null : vigente.generacion();
+            }
+            if (generacion != null && generacion == cursor.fuente.generacion) {
+                resultado.add(libroElement);
+            }
+            if (cursor.avanzar()) {
+                cola.add(cursor);
+            }
+        }
+
+        return resultado;
+    }
+
+    private List<Fuente> fuentesCompletas() throws JDOMException, IOException {
+        List<Fuente> fuentes = new ArrayList<>();
+        fuentes.add(fuente(GENERACION_BASE));
+        for (Run run : runs) {
+            fuentes.add(fuente(run.generacion));
+        }
+        fuentes.add(fuente(generacionActiva));
+        return fuentes;
+    }
+
+    private Fuente fuente(long generacion) throws JDOMException, IOException {
+        return new Fuente(generacion, librosDeGeneracion(generacion));
+    }
+
+    private List<Element> librosDeGeneracion(long generacion) throws JDOMException, IOException {
+        if (generacion == generacionActiva) {
+            return new ArrayList<>(runActivo.values());
+        }
+
+        List<Element> libros = librosPorGeneracion.get(generacion);
+        if (libros == null) {
+            File archivo = generacion == GENERACION_BASE ? new File(rutaArchivo) : archivoRun(generacion);
+            libros = ordenarPorClave(XmlArchivos.leer(archivo).getRootElement().getChildren("libro"));
+            librosPorGeneracion.put(generacion, libros);
+        }
+        return libros;
+    }
+
+    /**
+     * Método para ordenar por título e ISBN los libros de un archivo base
+     * LibroXmlData y TransferenciaXml solo ordenan por título (con títulos iguales se
+     * respeta el orden de llegada), pero la búsqueda binaria y la mezcla necesitan el orden
+     * completo. Los runs y las bases que escribe este almacén ya están en ese orden.
+     */
+    private static List<Element> ordenarPorClave(List<Element> libros) {
+        for (int i = 1; i < libros.size(); i++) {
+            if (clave(libros.get(i - 1)).compareTo(clave(libros.get(i))) > 0) {
+                List<Element> ordenados = new ArrayList<>(libros);
+                ordenados.sort(Comparator.comparing(LibroXmlDataIncremental::clave));
+                return ordenados;
+            }
+        }
+        return libros;
+    }
+
+    /**
+     * Búsqueda binaria de la primera posición cuya clave es mayor que la indicada
+     */
+    private static int primeraPosicionDespuesDe(List<Element> libros, String desde) {
+        int inicio = 0;
+        int fin = libros.size();
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (clave(libros.get(medio)).compareTo(desde) <= 0) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        return inicio;
+    }
+
+    private static Document documento(List<Element> libros) {
+        Element raiz = new Element("libros");
+        for (Element libroElement : libros) {
+            raiz.addContent(libroElement.clone());
+        }
+        return new Document(raiz);
+    }
+
+    private static boolean contieneAutor(Element libroElement, int idAutor) {
+        Element idsAutoresElement = libroElement.getChild("idsAutores");
+        if (idsAutoresElement == null) {
+            return false;
+        }
+        for (Element idAutorElement : idsAutoresElement.getChildren("idAutor")) {
+            if (Integer.parseInt(idAutorElement.getText()) == idAutor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean esMarcaBorrado(Element libroElement) {
+        return "true".equals(libroElement.getAttributeValue("eliminado"));
+    }
+
+    /**
+     * Clave de ordenamiento: título y luego ISBN
+     * Las marcas de borrado no tienen título y quedan al inicio del run
+     */
+    private static String clave(Element libroElement) {
+        return LibroXmlData.clave(libroElement.getChildText("titulo"), libroElement.getAttributeValue("ISBN"));
+    }
+
+    private File archivoRun(long generacion) {
+        File archivoBase = new File(rutaArchivo).getAbsoluteFile();
+        return new File(archivoBase.getParentFile(), archivoBase.getName() + ".run-" + generacion + ".xml");
+    }
+
+    private List<Long> listarGeneraciones() {
+        File archivoBase = new File(rutaArchivo).getAbsoluteFile();
+        String prefijo = archivoBase.getName() + ".run-";
+        List<Long> generaciones = new ArrayList<>();
+
+        File[] archivos = archivoBase.getParentFile().listFiles();
+        if (archivos == null) {
+            return generaciones;
+        }
+        for (File archivo : archivos) {
+            String nombre = archivo.getName();
+            if (nombre.startsWith(prefijo) && nombre.endsWith(".xml")) {
+                try {
+                    generaciones.add(Long.parseLong(nombre.substring(prefijo.length(), nombre.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // No es un run de este almacén
+                }
+            }
+        }
+        Collections.sort(generaciones);
+        return generaciones;
+    }
+
+    private record Run(long generacion, int tamano) {
+    }
+
+    /**
+     * El elemento es el mismo objeto que guarda la lista de su generación, no una copia
+     */
+    private record Vigente(long generacion, Element libro) {
+    }
+
+    private record Fuente(long generacion, List<Element> libros) {
+    }
+
+    private static final class Cursor {
+        private final Fuente fuente;
+        private int posicion;
+        private String clave;
+
+        Cursor(Fuente fuente, int posicion) {
+            this.fuente = fuente;
+            this.posicion = posicion;
+            this.clave = clave(fuente.libros.get(posicion));
+        }
+
+        Element actual() {
+            return fuente.libros.get(posicion);
+        }
+
+        boolean avanzar() {
+            posicion++;
+            if (posicion >= fuente.libros.size()) {
+                return false;
+            }
+            clave = clave(fuente.libros.get(posicion));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.vialectoris.libreria.core.data;
+
+import com.vialectoris.libreria.core.domain.Libro;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Catálogo de libros repartido en varios archivos (particiones) según el hash del ISBN
+ * Cada partición es un LibroXmlData con su propio archivo, índice y bloqueo, de modo que
+ * las escrituras sobre particiones distintas no compiten entre sí. Las búsquedas por ISBN
+ * van a una sola partición; las búsquedas por autor y los listados por título se consultan
+ * en paralelo en todas las particiones y se combinan.
+ * La cantidad de particiones se guarda en un manifiesto junto a los archivos
+ * (libros.xml -> libros.xml.particiones): como el ISBN decide la partición, reabrir el
+ * catálogo con otra cantidad dejaría libros inalcanzables, así que eso se rechaza.
+ */
+public class LibroXmlDataParticionado {
+    private final List<LibroXmlData> particiones;
+    private final ExecutorService ejecutor;
+
+    /**
+     * Constructor que crea (o abre) una partición por archivo
+     * Lanza IllegalStateException si el catálogo ya existe con otra cantidad de particiones
+     * Los archivos se nombran a partir de rutaArchivo: libros.xml -> libros-0.xml, libros-1.xml, ...
+     */
+    public LibroXmlDataParticionado(String rutaArchivo, int cantidadParticiones) {
+        this(rutaArchivo, cantidadParticiones, null);
+    }
+
+    /**
+     * Constructor que permite inyectar AutorXmlData
+     */
+    public LibroXmlDataParticionado(String rutaArchivo, int cantidadParticiones, AutorXmlData autorXmlData) {
+        this(rutaArchivo, cantidadParticiones, autorXmlData, false);
+    }
+
+    /**
+     * Constructor que permite guardar los archivos de las particiones comprimidos
+     */
+    public LibroXmlDataParticionado(String rutaArchivo, int cantidadParticiones, AutorXmlData autorXmlData,
+                                    boolean comprimido) {
+        if (cantidadParticiones <= 0) {
+            throw new IllegalArgumentException("La cantidad de particiones debe ser positiva: " + cantidadParticiones);
+        }
+        verificarManifiesto(rutaArchivo, cantidadParticiones);
+
+        List<LibroXmlData> creadas = new ArrayList<>();
+        for (int i = 0; i < cantidadParticiones; i++) {
+            creadas.add(new LibroXmlData(rutaParticion(rutaArchivo, i), autorXmlData, comprimido));
+        }
+        this.particiones = Collections.unmodifiableList(creadas);
+
+        this.ejecutor = Executors.newFixedThreadPool(cantidadParticiones, tarea -> {
+            Thread hilo = new Thread(tarea, "particion-libros");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Método para obtener la ruta del archivo de una partición
+     */
+    static String rutaParticion(String rutaArchivo, int indice) {
+        File archivo = new File(rutaArchivo);
+        String nombre = archivo.getName();
+        int punto = nombre.lastIndexOf('.');
+        String nombreParticion = punto < 0
+                ? nombre + "-" + indice
+                : nombre.substring(0, punto) + "-" + indice + nombre.substring(punto);
+        return new File(archivo.getParentFile(), nombreParticion).getPath();
+    }
+
+    /**
+     * Método para obtener la ruta del manifiesto con la cantidad de particiones
+     */
+    static String rutaManifiesto(String rutaArchivo) {
+        return rutaArchivo + ".particiones";
+    }
+
+    /**
+     * Método para comparar la cantidad de particiones pedida con la del catálogo existente
+     * Sin manifiesto (catálogo nuevo o anterior al manifiesto) se cuentan los archivos de
+     * partición que ya existen; si todo coincide, se escribe el manifiesto
+     */
+    private static void verificarManifiesto(String rutaArchivo, int cantidadParticiones) {
+        File manifiesto = new File(rutaManifiesto(rutaArchivo));
+        try {
+            int existentes;
+            if (manifiesto.exists()) {
+                String contenido = Files.readString(manifiesto.toPath(), StandardCharsets.UTF_8).trim();
+                try {
+                    existentes = Integer.parseInt(contenido);
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Manifiesto de particiones inválido en " + manifiesto + ": " + contenido);
+                }
+            } else {
+                existentes = 0;
+                while (new File(rutaParticion(rutaArchivo, existentes)).exists()) {
+                    existentes++;
+                }
+            }
+
+            if (existentes > 0 && existentes != cantidadParticiones) {
+                throw new IllegalStateException("El catálogo " + rutaArchivo + " tiene " + existentes
+                        + " particiones y se intentó abrir con " + cantidadParticiones);
+            }
+            if (!manifiesto.exists()) {
+                Files.writeString(manifiesto.toPath(), cantidadParticiones + System.lineSeparator(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer o escribir el manifiesto " + manifiesto, e);
+        }
+    }
+
+    public int getCantidadParticiones() {
+        return particiones.size();
+    }
+
+    /**
+     * Método insertar (solo bloquea la partición del ISBN)
+     */
+    public void insertar(Libro libro) {
+        particion(libro.getIsbn()).insertar(libro);
+    }
+
+    /**
+     * Método insertarLote (cada partición recibe su parte del lote y las escribe en paralelo)
+     * Las particiones que no reciben libros no se leen. Retorna la cantidad de libros insertados
+     */
+    public int insertarLote(Collection<Libro> libros) {
+        Map<LibroXmlData, List<Libro>> porParticion = new HashMap<>();
+        for (Libro libro : libros) {
+            porParticion.computeIfAbsent(particion(libro.getIsbn()), particion -> new ArrayList<>()).add(libro);
+        }
+
+        int insertados = 0;
+        for (int parcial : en(porParticion.keySet(), particion -> particion.insertarLote(porParticion.get(particion)))) {
+            insertados += parcial;
+        }
+        return insertados;
+    }
+
+    /**
+     * Método actualizar (el ISBN no cambia, por lo que el libro se queda en su partición)
+     */
+    public boolean actualizar(Libro libro) {
+        return particion(libro.getIsbn()).actualizar(libro);
+    }
+
+    /**
+     * Método eliminar
+     */
+    public boolean eliminar(String isbn) {
+        return particion(isbn).eliminar(isbn);
+    }
+
+    /**
+     * Método findLibroByIsbn (consulta una sola partición)
+     */
+    public Optional<Libro> findLibroByIsbn(String isbn) {
+        return particion(isbn).findLibroByIsbn(isbn);
+    }
+
+    /**
+     * Método findLibrosByIdAutor (consulta todas las particiones en paralelo)
+     */
+    public Map<String, Libro> findLibrosByIdAutor(int idAutor) {
+        Map<String, Libro> librosMap = new HashMap<>();
+        for (Map<String, Libro> parcial : enTodas(particion -> particion.findLibrosByIdAutor(idAutor))) {
+            librosMap.putAll(parcial);
+        }
+        return librosMap;
+    }
+
+    /**
+     * Método findPagina (retorna una página ordenada por título e ISBN de todo el catálogo)
+     * Cada partición aporta a lo sumo una página desde el mismo cursor y se toman los
+     * primeros tamanoPagina libros de la mezcla
+     */
+    public List<Libro> findPagina(String despuesDeTitulo, String despuesDeIsbn, int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo: " + tamanoPagina);
+        }
+
+        List<List<Libro>> paginas = enTodas(particion -> particion.findPagina(despuesDeTitulo, despuesDeIsbn, tamanoPagina));
+
+        PriorityQueue<Libro> candidatos = new PriorityQueue<>(
+                Comparator.comparing((Libro libro) -> LibroXmlData.clave(libro.getTitulo(), libro.getIsbn())));
+        for (List<Libro> pagina : paginas) {
+            candidatos.addAll(pagina);
+        }
+
+        List<Libro> resultado = new ArrayList<>();
+        while (!candidatos.isEmpty() && resultado.size() < tamanoPagina) {
+            resultado.add(candidatos.poll());
+        }
+        return resultado;
+    }
+
+    /**
+     * Método para detener los hilos usados en las consultas en paralelo
+     */
+    public void cerrar() {
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LibroXmlData particion(String isbn) {
+        return particiones.get(Math.floorMod(Objects.hashCode(isbn), particiones.size()));
+    }
+
+    private <T> List<T> enTodas(Function<LibroXmlData, T> consulta) {
+        return en(particiones, consulta);
+    }
+
+    private <T> List<T> en(Collection<LibroXmlData> elegidas, Function<LibroXmlData, T> consulta) {
+        List<CompletableFuture<T>> pendientes = new ArrayList<>();
+        for (LibroXmlData particion : elegidas) {
+            pendientes.add(CompletableFuture.supplyAsync(() -> consulta.apply(particion), ejecutor));
+        }
+
+        List<T> resultados = new ArrayList<>();
+        for (CompletableFuture<T> pendiente : pendientes) {
+            resultados.add(pendiente.join());
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,243 @@
+package com.vialectoris.libreria.core.data;
+
+import org.jdom2.Element;
+import org.jdom2.input.StAXStreamBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exportación e importación masiva de los archivos de autores y libros
+ * Un hilo lector recorre el archivo de origen en streaming (StAX) y deja cada registro en
+ * una cola acotada; el hilo que llama los toma en lotes y los escribe en el archivo de
+ * destino. La memoria usada depende de la capacidad de la cola y no del tamaño del
+ * catálogo, y si la escritura es más lenta el lector se detiene al llenarse la cola.
+ * Sirve para respaldos, migraciones y para cambiar de formato (comprimido o no).
+ * Para exportar un LibroXmlDataIncremental, primero se debe llamar a compactar().
+ */
+public class TransferenciaXml {
+    private static final int CAPACIDAD_COLA_POR_DEFECTO = 1024;
+    private static final int TAMANO_LOTE_POR_DEFECTO = 256;
+
+    // Marca de fin de la cola (se compara por identidad)
+    private static final Element FIN = new Element("fin");
+
+    private final int capacidadCola;
+    private final int tamanoLote;
+    private final Progreso progreso;
+
+    /**
+     * Recibe la cantidad de registros escritos después de cada lote
+     */
+    @FunctionalInterface
+    public interface Progreso {
+        void reportar(long registrosTransferidos);
+    }
+
+    /**
+     * Constructor con la capacidad de cola y el tamaño de lote por defecto, sin reporte de progreso
+     */
+    public TransferenciaXml() {
+        this(CAPACIDAD_COLA_POR_DEFECTO, TAMANO_LOTE_POR_DEFECTO, null);
+    }
+
+    /**
+     * Constructor que permite indicar la capacidad de la cola, el tamaño de lote y el progreso
+     */
+    public TransferenciaXml(int capacidadCola, int tamanoLote, Progreso progreso) {
+        if (capacidadCola <= 0 || tamanoLote <= 0) {
+            throw new IllegalArgumentException("La capacidad de la cola y el tamaño de lote deben ser positivos");
+        }
+        this.capacidadCola = capacidadCola;
+        this.tamanoLote = tamanoLote;
+        this.progreso = progreso;
+    }
+
+    /**
+     * Método para copiar un archivo de autores (retorna la cantidad de autores copiados)
+     */
+    public long transferirAutores(String rutaOrigen, String rutaDestino, boolean comprimirDestino) throws IOException {
+        return transferir(new File(rutaOrigen), new File(rutaDestino), comprimirDestino,
+                "autores", "autor", autorElement -> true);
+    }
+
+    /**
+     * Método para copiar un archivo de libros (retorna la cantidad de libros copiados)
+     * Los libros se escriben en el mismo orden en que se leen, por lo que el origen debe
+     * estar ordenado por título; si no lo está, la transferencia falla y el destino no cambia
+     */
+    public long transferirLibros(String rutaOrigen, String rutaDestino, boolean comprimirDestino) throws IOException {
+        return transferir(new File(rutaOrigen), new File(rutaDestino), comprimirDestino,
+                "libros", "libro", new OrdenPorTitulo());
+    }
+
+    private long transferir(File origen, File destino, boolean comprimirDestino,
+                            String nombreRaiz, String nombreRegistro, Filtro filtro) throws IOException {
+        if (!origen.exists()) {
+            throw new FileNotFoundException("No existe el archivo de origen: " + origen);
+        }
+
+        BlockingQueue<Element> cola = new ArrayBlockingQueue<>(capacidadCola);
+        AtomicReference<Throwable> errorLectura = new AtomicReference<>();
+
+        Thread lector = new Thread(() -> leer(origen, nombreRegistro, cola, errorLectura), "transferencia-lector");
+        lector.setDaemon(true);
+        lector.start();
+
+        long[] total = new long[1];
+        try {
+            // El destino se escribe en un temporal y se renombra al final: si algo falla queda intacto
+            XmlArchivos.escribirAtomico(destino, comprimirDestino, salida ->
+                    total[0] = escribir(salida, comprimirDestino, nombreRaiz, cola, filtro, errorLectura));
+        } finally {
+            // Si la escritura falló, el lector puede estar bloqueado esperando espacio en la cola
+            lector.interrupt();
+            try {
+                lector.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return total[0];
+    }
+
+    /**
+     * Productor: recorre el archivo y encola cada registro sin cargar el documento completo
+     */
+    private static void leer(File origen, String nombreRegistro, BlockingQueue<Element> cola,
+                             AtomicReference<Throwable> errorLectura) {
+        try (InputStream entrada = XmlArchivos.abrirLectura(origen)) {
+            XMLInputFactory fabrica = XMLInputFactory.newFactory();
+            fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader lector = fabrica.createXMLStreamReader(entrada);
+            StAXStreamBuilder builder = new StAXStreamBuilder();
+
+            try {
+                while (lector.hasNext()) {
+                    if (lector.isStartElement() && nombreRegistro.equals(lector.getLocalName())) {
+                        // fragment() construye el registro y deja el lector en el evento siguiente
+                        cola.put((Element) builder.fragment(lector));
+                    } else {
+                        lector.next();
+                    }
+                }
+            } finally {
+                lector.close();
+            }
+        } catch (InterruptedException e) {
+            // La escritura terminó antes (por un error); no hace falta avisar el fin
+            return;
+        } catch (Throwable e) {
+            // Cualquier falla (también las no verificadas) debe llegar al escritor con la marca
+            // de fin; si el hilo muriera sin encolarla, el escritor esperaría para siempre
+            errorLectura.set(e);
+        }
+
+        try {
+            cola.put(FIN);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Consumidor: escribe los registros por lotes y reporta el progreso después de cada lote
+     */
+    private long escribir(OutputStream salida, boolean comprimido, String nombreRaiz, BlockingQueue<Element> cola,
+                          Filtro filtro, AtomicReference<Throwable> errorLectura) throws IOException {
+        Writer escritor = new OutputStreamWriter(salida, StandardCharsets.UTF_8);
+
+        // Sin comprimir se reproduce el formato legible de los almacenes (registros con sangría)
+        Format formato = XmlArchivos.formato(comprimido);
+        String separador = comprimido ? "" : formato.getLineSeparator();
+        String antesDeRegistro = comprimido ? "" : separador + formato.getIndent();
+        if (!comprimido) {
+            formato.setLineSeparator(antesDeRegistro);
+        }
+        XMLOutputter xmlOutput = new XMLOutputter(formato);
+
+        escritor.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + separador + "<" + nombreRaiz + ">");
+
+        long total = 0;
+        List<Element> lote = new ArrayList<>(tamanoLote);
+        boolean fin = false;
+        while (!fin) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Transferencia interrumpida");
+            }
+            cola.drainTo(lote, tamanoLote - 1);
+
+            for (Element registro : lote) {
+                if (registro == FIN) {
+                    fin = true;
+                    break;
+                }
+                if (filtro.incluir(registro)) {
+                    escritor.write(antesDeRegistro);
+                    xmlOutput.output(registro, escritor);
+                    total++;
+                }
+            }
+            lote.clear();
+
+            escritor.flush();
+            if (progreso != null) {
+                progreso.reportar(total);
+            }
+        }
+
+        Throwable error = errorLectura.get();
+        if (error != null) {
+            throw new IOException("Error al leer el archivo de origen", error);
+        }
+
+        escritor.write(separador + "</" + nombreRaiz + ">" + separador);
+        escritor.flush();
+        return total;
+    }
+
+    /**
+     * Decide si un registro se copia; puede rechazar la transferencia completa con una excepción
+     */
+    private interface Filtro {
+        boolean incluir(Element registro) throws IOException;
+    }
+
+    /**
+     * Verifica que los libros lleguen ordenados por título y descarta las marcas de borrado
+     */
+    private static final class OrdenPorTitulo implements Filtro {
+        private String tituloAnterior;
+
+        @Override
+        public boolean incluir(Element libroElement) throws IOException {
+            if ("true".equals(libroElement.getAttributeValue("eliminado"))) {
+                return false;
+            }
+
+            String titulo = libroElement.getChildText("titulo");
+            if (titulo == null) {
+                throw new IOException("Libro sin título: ISBN " + libroElement.getAttributeValue("ISBN"));
+            }
+            if (tituloAnterior != null && titulo.compareTo(tituloAnterior) < 0) {
+                throw new IOException("El archivo de origen no está ordenado por título: \""
+                        + titulo + "\" aparece después de \"" + tituloAnterior + "\"");
+            }
+            tituloAnterior = titulo;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.vialectoris.libreria.core.data;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Utilidades de lectura y escritura de los archivos XML de los almacenes
+ * Los archivos pueden guardarse comprimidos con gzip; al leer se detecta el formato
+ * por los primeros bytes, así un almacén abre indistintamente archivos de ambos tipos.
+ */
+final class XmlArchivos {
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private XmlArchivos() {
+    }
+
+    /**
+     * Método para cargar un documento XML completo (comprimido o no)
+     */
+    static Document leer(File archivo) throws JDOMException, IOException {
+        try (InputStream entrada = abrirLectura(archivo)) {
+            SAXBuilder builder = new SAXBuilder();
+            return builder.build(entrada);
+        }
+    }
+
+    /**
+     * Método para abrir un archivo para lectura, descomprimiendo al vuelo si es gzip
+     */
+    static InputStream abrirLectura(File archivo) throws IOException {
+        InputStream entrada = new BufferedInputStream(Files.newInputStream(archivo.toPath()), TAMANO_BUFFER);
+        try {
+            return esGzip(entrada) ? new GZIPInputStream(entrada, TAMANO_BUFFER) : entrada;
+        } catch (IOException e) {
+            entrada.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Método para saber si un archivo existente está comprimido con gzip
+     */
+    static boolean estaComprimido(File archivo) {
+        if (!archivo.exists() || archivo.length() == 0) {
+            return false;
+        }
+
+        try (InputStream entrada = new BufferedInputStream(Files.newInputStream(archivo.toPath()))) {
+            return esGzip(entrada);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Método para obtener la firma de un archivo, o null si no existe
+     * Cada escritura renombra un temporal nuevo sobre el destino, así que el identificador
+     * del archivo (el inodo en Linux) cambia aunque el tamaño y la fecha coincidan
+     */
+    static Firma firma(File archivo) {
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(archivo.toPath(), BasicFileAttributes.class);
+            return new Firma(atributos.fileKey(), atributos.lastModifiedTime(), atributos.size());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Método para guardar un documento sin comprimir, con formato legible
+     */
+    static void escribir(Document documento, File archivo) throws IOException {
+        escribir(documento, archivo, false);
+    }
+
+    /**
+     * Método para guardar un documento de forma atómica
+     * Se escribe primero un archivo temporal en el mismo directorio y luego se
+     * renombra sobre el destino, así un lector nunca ve un archivo a medio escribir.
+     * Comprimido se usa un formato compacto (sin sangrías) y gzip al vuelo.
+     */
+    static void escribir(Document documento, File archivo, boolean comprimido) throws IOException {
+        escribirAtomico(archivo, comprimido, salida -> {
+            XMLOutputter xmlOutput = new XMLOutputter();
+            xmlOutput.setFormat(formato(comprimido));
+            xmlOutput.output(documento, salida);
+        });
+    }
+
+    /**
+     * Método para escribir un archivo de forma atómica con el contenido que genere el escritor
+     * El temporal se crea con los permisos por defecto (no los 0600 de Files.createTempFile)
+     * y, si el destino ya existe, recibe sus permisos, como al sobrescribirlo directamente
+     */
+    static void escribirAtomico(File archivo, boolean comprimido, Escritor escritor) throws IOException {
+        // Asegurarse de que el directorio existe
+        File directorio = archivo.getAbsoluteFile().getParentFile();
+        if (directorio != null && !directorio.exists()) {
+            directorio.mkdirs();
+        }
+
+        Path temporal = directorio.toPath().resolve(archivo.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream salida = abrirEscritura(temporal, comprimido)) {
+                escritor.escribir(salida);
+            }
+            copiarPermisos(archivo.toPath(), temporal);
+            Files.move(temporal, archivo.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Formato de salida: legible sin comprimir, o sin sangrías ni saltos de línea comprimido
+     * El formato compacto, a diferencia de getCompactFormat(), no normaliza los espacios
+     * dentro de los textos (un título con dos espacios se conserva)
+     */
+    static Format formato(boolean comprimido) {
+        return comprimido
+                ? Format.getRawFormat().setTextMode(Format.TextMode.TRIM_FULL_WHITE)
+                : Format.getPrettyFormat();
+    }
+
+    private static OutputStream abrirEscritura(Path destino, boolean comprimido) throws IOException {
+        OutputStream salida = new BufferedOutputStream(
+                Files.newOutputStream(destino, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), TAMANO_BUFFER);
+        return comprimido ? new GZIPOutputStream(salida, TAMANO_BUFFER) : salida;
+    }
+
+    private static void copiarPermisos(Path origen, Path destino) throws IOException {
+        if (!Files.exists(origen)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(destino, Files.getPosixFilePermissions(origen));
+        } catch (UnsupportedOperationException e) {
+            // Sistema de archivos sin permisos POSIX: el temporal conserva los permisos por defecto
+        }
+    }
+
+    /**
+     * Revisa el número mágico de gzip (0x1f 0x8b) sin consumir los bytes
+     */
+    private static boolean esGzip(InputStream entrada) throws IOException {
+        entrada.mark(2);
+        int primero = entrada.read();
+        int segundo = entrada.read();
+        entrada.reset();
+        return primero == 0x1f && segundo == 0x8b;
+    }
+
+    /**
+     * Identificador (puede ser null según el sistema de archivos), fecha de modificación con
+     * la precisión completa del sistema de archivos y tamaño
+     */
+    record Firma(Object claveArchivo, FileTime modificado, long tamano) {
+    }
+
+    /**
+     * Contenido a escribir en un archivo
+     */
+    @FunctionalInterface
+    interface Escritor {
+        void escribir(OutputStream salida) throws IOException;
+    }
+}
@@ -0,0 +1,70 @@
+package com.vialectoris.libreria.core.carga;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfiguracionCargaTest {
+
+    @Test
+    void desdeArgumentos_sinArgumentos_usaValoresPorDefecto() {
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desdeArgumentos(new String[0]);
+
+        assertEquals(2000, configuracion.getLibros());
+        assertEquals(500, configuracion.getAutores());
+        assertEquals(4, configuracion.getHilos());
+        assertEquals(20000, configuracion.getOperaciones());
+        assertArrayEquals(new int[]{60, 20, 10, 10}, configuracion.getMezcla());
+        assertEquals(1.1, configuracion.getExponenteZipf());
+        assertEquals(ConfiguracionCarga.TipoAlmacen.SIMPLE, configuracion.getAlmacen());
+        assertFalse(configuracion.isComprimido());
+        assertNull(configuracion.getDirectorio());
+        assertFalse(configuracion.isAyuda());
+    }
+
+    @Test
+    void desdeArgumentos_conOpciones() {
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desdeArgumentos(new String[]{
+                "--libros=100", "--autores=20", "--hilos=2", "--operaciones=500", "--mezcla=25, 25,25,25",
+                "--zipf=0.8", "--almacen=Particionado", "--particiones=8", "--comprimido",
+                "--directorio=/tmp/carga", "--semilla=7", "--ayuda"});
+
+        assertEquals(100, configuracion.getLibros());
+        assertEquals(20, configuracion.getAutores());
+        assertEquals(2, configuracion.getHilos());
+        assertEquals(500, configuracion.getOperaciones());
+        assertArrayEquals(new int[]{25, 25, 25, 25}, configuracion.getMezcla());
+        assertEquals(0.8, configuracion.getExponenteZipf());
+        assertEquals(ConfiguracionCarga.TipoAlmacen.PARTICIONADO, configuracion.getAlmacen());
+        assertEquals(8, configuracion.getParticiones());
+        assertTrue(configuracion.isComprimido());
+        assertEquals("/tmp/carga", configuracion.getDirectorio());
+        assertEquals(7, configuracion.getSemilla());
+        assertTrue(configuracion.isAyuda());
+
+        // La mezcla retornada es una copia
+        configuracion.getMezcla()[0] = 99;
+        assertEquals(25, configuracion.getMezcla()[0]);
+    }
+
+    @Test
+    void desdeArgumentos_conValoresInvalidos_falla() {
+        String[][] invalidos = {
+                {"libros=10"},
+                {"--desconocida=1"},
+                {"--libros"},
+                {"--libros=0"},
+                {"--hilos=dos"},
+                {"--mezcla=50,50"},
+                {"--mezcla=50,30,10,5"},
+                {"--mezcla=110,-10,0,0"},
+                {"--zipf=-1"},
+                {"--almacen=memoria"},
+                {"--semilla=x"}};
+
+        for (String[] argumentos : invalidos) {
+            assertThrows(IllegalArgumentException.class, () -> ConfiguracionCarga.desdeArgumentos(argumentos),
+                    argumentos[0]);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.vialectoris.libreria.core.carga;
+
+import com.vialectoris.libreria.core.domain.Autor;
+import com.vialectoris.libreria.core.domain.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneradorCatalogoTest {
+
+    @Test
+    void generarAutores_idsConsecutivos_conDatosCompletos() {
+        List<Autor> autores = new GeneradorCatalogo(50, 1.1).generarAutores(new SplittableRandom(1));
+
+        assertEquals(50, autores.size());
+        for (int i = 0; i < autores.size(); i++) {
+            Autor autor = autores.get(i);
+            assertEquals(i + 1, autor.getIdAutor());
+            assertNotNull(autor.getNombre());
+            assertNotNull(autor.getApellidos());
+            assertNotNull(autor.getNacionalidad());
+        }
+    }
+
+    @Test
+    void generarLibro_autoresPorLibro_sigueLaDistribucion() {
+        GeneradorCatalogo generador = new GeneradorCatalogo(500, 1.1);
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        int muestras = 20000;
+        int[] conteo = new int[5];
+        int librosDelAutor1 = 0;
+
+        for (int i = 0; i < muestras; i++) {
+            Libro libro = generador.generarLibro(GeneradorCatalogo.isbn(i), aleatorio);
+            int cantidad = libro.getAutores().size();
+            assertTrue(cantidad >= 1 && cantidad <= 4, "cantidad de autores: " + cantidad);
+            conteo[cantidad]++;
+
+            // Sin autores repetidos dentro de un libro y con IDs válidos
+            Set<Integer> ids = new HashSet<>();
+            for (Autor autor : libro.getAutores()) {
+                assertTrue(autor.getIdAutor() >= 1 && autor.getIdAutor() <= 500);
+                assertTrue(ids.add(autor.getIdAutor()));
+            }
+            if (ids.contains(1)) {
+                librosDelAutor1++;
+            }
+        }
+
+        // 75 %, 18 %, 5 % y 2 %, con margen para el muestreo
+        assertEquals(0.75, (double) conteo[1] / muestras, 0.02);
+        assertEquals(0.18, (double) conteo[2] / muestras, 0.02);
+        assertEquals(0.05, (double) conteo[3] / muestras, 0.01);
+        assertEquals(0.02, (double) conteo[4] / muestras, 0.01);
+
+        // Zipf: el autor 1 participa en muchos más libros que el promedio (1.3 / 500 por libro)
+        assertTrue(librosDelAutor1 > muestras / 20, "libros del autor 1: " + librosDelAutor1);
+    }
+
+    @Test
+    void generarLibro_conPocosAutores_noRepiteNiSeBloquea() {
+        // Con un solo autor no se pueden pedir más autores distintos de los que hay
+        GeneradorCatalogo generador = new GeneradorCatalogo(1, 5.0);
+        SplittableRandom aleatorio = new SplittableRandom(3);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, generador.generarLibro(GeneradorCatalogo.isbn(i), aleatorio).getAutores().size());
+        }
+    }
+
+    @Test
+    void isbn_formatoDeTreceDigitos() {
+        assertEquals("9780000000000", GeneradorCatalogo.isbn(0));
+        assertEquals("9780000012345", GeneradorCatalogo.isbn(12345));
+    }
+}
@@ -0,0 +1,79 @@
+package com.vialectoris.libreria.core.carga;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramaLatenciasTest {
+
+    @Test
+    void percentil_uniforme_errorRelativoAcotado() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        for (long i = 1; i <= 100000; i++) {
+            histograma.registrar(i * 1000);
+        }
+
+        assertEquals(100000, histograma.getTotal());
+        assertEquals(1000, histograma.getMinimo());
+        assertEquals(100000000, histograma.getMaximo());
+        assertEquals(50000500.0, histograma.getPromedio(), 0.001);
+
+        assertCercano(50000000, histograma.percentil(0.50));
+        assertCercano(99000000, histograma.percentil(0.99));
+        assertCercano(99900000, histograma.percentil(0.999));
+        assertEquals(100000000, histograma.percentil(1.0));
+    }
+
+    @Test
+    void agregar_combinaHistogramasDeVariosHilos() {
+        HistogramaLatencias rapidos = new HistogramaLatencias();
+        HistogramaLatencias lentos = new HistogramaLatencias();
+        for (int i = 0; i < 990; i++) {
+            rapidos.registrar(10);
+        }
+        for (int i = 0; i < 10; i++) {
+            lentos.registrar(5000000);
+        }
+
+        HistogramaLatencias total = new HistogramaLatencias();
+        total.agregar(rapidos);
+        total.agregar(lentos);
+
+        assertEquals(1000, total.getTotal());
+        assertEquals(10, total.getMinimo());
+        assertEquals(10, total.percentil(0.50));
+        assertEquals(10, total.percentil(0.99));
+        assertCercano(5000000, total.percentil(0.999));
+    }
+
+    @Test
+    void cubeta_limiteSuperior_cubrenTodoElRango() {
+        // Cada valor cae en una cubeta cuyo límite superior lo cubre con error menor a 1/32
+        long[] valores = {0, 1, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long valor : valores) {
+            long limite = HistogramaLatencias.limiteSuperior(HistogramaLatencias.cubeta(valor));
+            assertTrue(limite >= valor, "límite menor al valor " + valor);
+            assertTrue(limite - valor <= valor / 32, "límite demasiado lejano para " + valor);
+        }
+
+        // Las cubetas son crecientes
+        for (long valor = 1; valor < 1 << 20; valor++) {
+            assertTrue(HistogramaLatencias.cubeta(valor) >= HistogramaLatencias.cubeta(valor - 1));
+        }
+    }
+
+    @Test
+    void histogramaVacio_y_percentilInvalido() {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+
+        assertEquals(0, histograma.percentil(0.99));
+        assertEquals(0, histograma.getMinimo());
+        assertEquals(0.0, histograma.getPromedio());
+        assertThrows(IllegalArgumentException.class, () -> histograma.percentil(1.5));
+    }
+
+    private static void assertCercano(long esperado, long obtenido) {
+        assertTrue(Math.abs(obtenido - esperado) <= esperado / 32,
+                "se esperaba cerca de " + esperado + " y se obtuvo " + obtenido);
+    }
+}
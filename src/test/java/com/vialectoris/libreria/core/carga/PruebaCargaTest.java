@@ -0,0 +1,41 @@
+package com.vialectoris.libreria.core.carga;
+
+import org.jdom2.input.SAXBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PruebaCargaTest {
+
+    @Test
+    void ejecutar_dosVecesEnElMismoDirectorio_noDuplicaElCatalogo(@TempDir Path directorio) throws Exception {
+        Path ajeno = Files.writeString(directorio.resolve("notas.txt"), "no es del catálogo");
+        ConfiguracionCarga configuracion = ConfiguracionCarga.desdeArgumentos(new String[]{
+                "--libros=60", "--autores=15", "--hilos=2", "--operaciones=40", "--directorio=" + directorio});
+        PrintStream silencio = new PrintStream(OutputStream.nullOutputStream());
+
+        for (int ejecucion = 0; ejecucion < 2; ejecucion++) {
+            Map<PruebaCarga.TipoOperacion, HistogramaLatencias> resultado = new PruebaCarga(configuracion).ejecutar(silencio);
+
+            long total = 0;
+            for (HistogramaLatencias histograma : resultado.values()) {
+                total += histograma.getTotal();
+            }
+            assertEquals(40, total);
+
+            File autores = directorio.resolve("autores.xml").toFile();
+            assertEquals(15, new SAXBuilder().build(autores).getRootElement().getChildren("autor").size());
+        }
+
+        // Solo se reemplazan los archivos del catálogo
+        assertTrue(Files.exists(ajeno));
+    }
+}
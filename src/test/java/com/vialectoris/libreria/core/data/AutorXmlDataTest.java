@@ -8,7 +8,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -73,4 +75,168 @@ class AutorXmlDataTest {
 
         assertTrue(autores.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAutorById_veActualizacionDeOtraInstancia_conMismoTamanoYFecha() {
+        autorData.insertar(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+        assertEquals("Colombiana", autorData.findAutorById(1).orElseThrow().getNacionalidad());
+
+        File archivo = new File(rutaArchivo);
+        long modificado = archivo.lastModified();
+        long tamano = archivo.length();
+
+        // Mismo largo de texto y la fecha anterior: solo cambia el archivo en sí
+        assertTrue(new AutorXmlData(rutaArchivo).actualizar(new Autor(1, "Gabriel", "García Márquez", "Colombianx")));
+        archivo.setLastModified(modificado);
+        assertEquals(tamano, archivo.length());
+
+        assertEquals("Colombianx", autorData.findAutorById(1).orElseThrow().getNacionalidad());
+    }
+
+    @Test
+    void actualizar_con_autorExistente() {
+        autorData.insertar(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+        autorData.insertar(new Autor(2, "Isabel", "Allende", "Chilena"));
+
+        assertTrue(autorData.actualizar(new Autor(2, "Isabel", "Allende Llona", "Chilena")));
+
+        Optional<Autor> autor = autorData.findAutorById(2);
+        assertTrue(autor.isPresent());
+        assertEquals("Allende Llona", autor.get().getApellidos());
+        assertFalse(autorData.actualizar(new Autor(999, "Nadie", "Nadie", "Ninguna")));
+    }
+
+    @Test
+    void eliminar_con_autorExistente() {
+        Autor autor1 = new Autor(1, "Gabriel", "García Márquez", "Colombiana");
+        Autor autor2 = new Autor(2, "Isabel", "Allende", "Chilena");
+        autorData.insertar(autor1);
+        autorData.insertar(autor2);
+
+        assertTrue(autorData.eliminar(1));
+        assertFalse(autorData.eliminar(1));
+
+        Set<Autor> autores = autorData.findAll();
+        assertEquals(1, autores.size());
+        assertTrue(autores.contains(autor2));
+    }
+
+    @Test
+    void actualizar_y_eliminar_con_idAutorRepetido() throws Exception {
+        // insertar no rechaza IDs repetidos: ambos registros deben tratarse como uno solo
+        autorData.insertar(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+        autorData.insertar(new Autor(2, "Isabel", "Allende", "Chilena"));
+        autorData.insertar(new Autor(1, "Gabo", "García", "Colombiana"));
+
+        assertTrue(autorData.actualizar(new Autor(1, "Gabriel José", "García Márquez", "Colombiana")));
+        for (Element autorElement : new SAXBuilder().build(new File(rutaArchivo)).getRootElement().getChildren("autor")) {
+            if ("1".equals(autorElement.getAttributeValue("idAutor"))) {
+                assertEquals("Gabriel José", autorElement.getChildText("nombre"));
+            }
+        }
+        assertEquals("Gabriel José", new AutorXmlData(rutaArchivo).findAutorById(1).orElseThrow().getNombre());
+
+        assertTrue(autorData.eliminar(1));
+        assertTrue(autorData.findAutorById(1).isEmpty());
+
+        // Otra instancia, que lee el archivo desde cero, tampoco lo encuentra
+        assertTrue(new AutorXmlData(rutaArchivo).findAutorById(1).isEmpty());
+        assertEquals(1, new SAXBuilder().build(new File(rutaArchivo)).getRootElement().getChildren("autor").size());
+    }
+
+    @Test
+    void insertarLote_alFinal_y_actualizaIndice() throws Exception {
+        autorData.insertar(new Autor(4, "Julio", "Cortázar", "Argentina"));
+        // Cargar el índice antes del lote para verificar que se mantiene sin recargar
+        assertTrue(autorData.findAutorById(4).isPresent());
+
+        int insertados = autorData.insertarLote(List.of(
+                new Autor(2, "Isabel", "Allende", "Chilena"),
+                new Autor(1, "Gabriel", "García Márquez", "Colombiana"),
+                new Autor(4, "Otro", "Repetido", "Ninguna")));
+        assertEquals(3, insertados);
+
+        // El lote se agrega al final en el orden recibido
+        List<Element> autores = new SAXBuilder().build(new File(rutaArchivo)).getRootElement().getChildren("autor");
+        assertEquals(4, autores.size());
+        assertEquals("4", autores.get(0).getAttributeValue("idAutor"));
+        assertEquals("2", autores.get(1).getAttributeValue("idAutor"));
+        assertEquals("1", autores.get(2).getAttributeValue("idAutor"));
+        assertEquals("4", autores.get(3).getAttributeValue("idAutor"));
+
+        assertEquals("Allende", autorData.findAutorById(2).orElseThrow().getApellidos());
+        // Con un ID repetido, el índice conserva el primero del archivo (igual que al recargar)
+        assertEquals("Cortázar", autorData.findAutorById(4).orElseThrow().getApellidos());
+        assertEquals("Cortázar", new AutorXmlData(rutaArchivo).findAutorById(4).orElseThrow().getApellidos());
+
+        List<Autor> pagina = autorData.findPagina(null, 10);
+        assertEquals(3, pagina.size());
+        assertEquals(1, pagina.get(0).getIdAutor());
+        assertEquals(2, pagina.get(1).getIdAutor());
+        assertEquals(4, pagina.get(2).getIdAutor());
+
+        assertEquals(0, autorData.insertarLote(List.of()));
+    }
+
+    @Test
+    void findPagina_ordenadaPorIdAutor_con_cursor() {
+        // Insertar en desorden
+        int[] ids = {5, 3, 9, 1, 7, 2};
+        for (int id : ids) {
+            autorData.insertar(new Autor(id, "Nombre " + id, "Apellidos " + id, "Costarricense"));
+        }
+
+        List<Autor> pagina1 = autorData.findPagina(null, 4);
+        assertEquals(4, pagina1.size());
+        assertEquals(1, pagina1.get(0).getIdAutor());
+        assertEquals(2, pagina1.get(1).getIdAutor());
+        assertEquals(3, pagina1.get(2).getIdAutor());
+        assertEquals(5, pagina1.get(3).getIdAutor());
+
+        // Usar el último autor de la página como cursor
+        List<Autor> pagina2 = autorData.findPagina(pagina1.get(3).getIdAutor(), 4);
+        assertEquals(2, pagina2.size());
+        assertEquals(7, pagina2.get(0).getIdAutor());
+        assertEquals(9, pagina2.get(1).getIdAutor());
+
+        assertTrue(autorData.findPagina(9, 4).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> autorData.findPagina(null, 0));
+    }
+
+    @Test
+    void findPagina_refleja_actualizar_y_eliminar() {
+        autorData.insertar(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+        autorData.insertar(new Autor(2, "Isabel", "Allende", "Chilena"));
+        autorData.findPagina(null, 10);
+
+        autorData.actualizar(new Autor(2, "Isabel", "Allende Llona", "Chilena"));
+        autorData.eliminar(1);
+
+        List<Autor> pagina = autorData.findPagina(null, 10);
+        assertEquals(1, pagina.size());
+        assertEquals("Allende Llona", pagina.get(0).getApellidos());
+    }
+
+    @Test
+    void comprimido_seDetectaAlReabrir() throws Exception {
+        String rutaComprimida = "autores_comprimido_test.xml.gz";
+        new File(rutaComprimida).delete();
+
+        AutorXmlData comprimida = new AutorXmlData(rutaComprimida, true);
+        comprimida.insertar(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+
+        // El archivo empieza con el número mágico de gzip
+        try (FileInputStream entrada = new FileInputStream(rutaComprimida)) {
+            assertEquals(0x1f, entrada.read());
+            assertEquals(0x8b, entrada.read());
+        }
+
+        // Abrirlo sin indicar compresión lo lee y lo sigue guardando comprimido
+        AutorXmlData reabierta = new AutorXmlData(rutaComprimida);
+        reabierta.insertar(new Autor(2, "Isabel", "Allende", "Chilena"));
+        assertEquals(2, reabierta.findAll().size());
+        assertTrue(XmlArchivos.estaComprimido(new File(rutaComprimida)));
+
+        new File(rutaComprimida).delete();
+    }
+}
@@ -0,0 +1,307 @@
+package com.vialectoris.libreria.core.data;
+
+import com.vialectoris.libreria.core.domain.Autor;
+import com.vialectoris.libreria.core.domain.Libro;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibroXmlDataIncrementalTest {
+    private static final int TAMANO_RUN = 4;
+
+    private String rutaArchivo;
+    private LibroXmlDataIncremental libroData;
+    private List<Autor> autores;
+
+    @BeforeEach
+    void setup() {
+        // Usar un archivo diferente para cada test para evitar interferencias
+        rutaArchivo = "libros_incremental_test_" + UUID.randomUUID() + ".xml";
+        libroData = new LibroXmlDataIncremental(rutaArchivo, null, TAMANO_RUN);
+
+        autores = new ArrayList<>();
+        autores.add(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+    }
+
+    @AfterEach
+    void limpiar() {
+        libroData.cerrar();
+        String nombre = new File(rutaArchivo).getName();
+        File[] archivos = new File(rutaArchivo).getAbsoluteFile().getParentFile().listFiles();
+        if (archivos != null) {
+            for (File archivo : archivos) {
+                if (archivo.getName().startsWith(nombre)) {
+                    archivo.delete();
+                }
+            }
+        }
+    }
+
+    private Libro libro(String isbn, String titulo) {
+        Libro libro = new Libro(isbn, titulo, 2000);
+        libro.setAutores(autores);
+        return libro;
+    }
+
+    @Test
+    void findAll_ordenadoPorTitulo_entreBaseYRuns() {
+        // Insertar más libros que el tamaño de un run, en orden inverso
+        for (int i = 20; i >= 1; i--) {
+            libroData.insertar(libro(String.valueOf(i), String.format("Titulo %02d", i)));
+        }
+
+        List<Libro> libros = libroData.findAll();
+
+        assertEquals(20, libros.size());
+        for (int i = 0; i < libros.size(); i++) {
+            assertEquals(String.format("Titulo %02d", i + 1), libros.get(i).getTitulo());
+        }
+    }
+
+    @Test
+    void insertar_cuando_libroEsDuplicado_no_inserta() {
+        libroData.insertar(libro("123", "Cien años de soledad"));
+        // Forzar que el original quede en el archivo base
+        libroData.compactar();
+
+        libroData.insertar(libro("123", "Otro título"));
+
+        List<Libro> libros = libroData.findAll();
+        assertEquals(1, libros.size());
+        assertEquals("Cien años de soledad", libros.get(0).getTitulo());
+    }
+
+    @Test
+    void findLibroByIsbn_en_runActivo_y_enBase() {
+        libroData.insertar(libro("111", "Zoología"));
+        assertEquals("Zoología", libroData.findLibroByIsbn("111").orElseThrow().getTitulo());
+
+        libroData.compactar();
+        libroData.insertar(libro("222", "Aventuras"));
+
+        Optional<Libro> enBase = libroData.findLibroByIsbn("111");
+        Optional<Libro> enRun = libroData.findLibroByIsbn("222");
+
+        assertTrue(enBase.isPresent());
+        assertEquals(1, enBase.get().getAutores().get(0).getIdAutor());
+        assertTrue(enRun.isPresent());
+        assertEquals("Aventuras", enRun.get().getTitulo());
+        assertFalse(libroData.findLibroByIsbn("999").isPresent());
+    }
+
+    @Test
+    void compactar_integraRunsEnArchivoBaseOrdenado() throws Exception {
+        libroData.insertar(libro("1", "Zoología"));
+        libroData.insertar(libro("2", "Aventuras"));
+        libroData.insertar(libro("3", "Medicina"));
+
+        libroData.compactar();
+
+        // Ya no deben quedar runs junto al archivo base
+        String prefijo = new File(rutaArchivo).getName() + ".run-";
+        File[] archivos = new File(rutaArchivo).getAbsoluteFile().getParentFile()
+                .listFiles((directorio, nombre) -> nombre.startsWith(prefijo));
+        assertNotNull(archivos);
+        assertEquals(0, archivos.length);
+
+        // El archivo base queda ordenado por título
+        Document doc = new SAXBuilder().build(new File(rutaArchivo));
+        List<Element> libros = doc.getRootElement().getChildren("libro");
+        assertEquals(3, libros.size());
+        assertEquals("Aventuras", libros.get(0).getChildText("titulo"));
+        assertEquals("Medicina", libros.get(1).getChildText("titulo"));
+        assertEquals("Zoología", libros.get(2).getChildText("titulo"));
+    }
+
+    @Test
+    void reabrir_conservaLibrosDeBaseYRuns() {
+        for (int i = 1; i <= 10; i++) {
+            libroData.insertar(libro(String.valueOf(i), "Titulo " + (char) ('A' + 10 - i)));
+        }
+        libroData.cerrar();
+
+        LibroXmlDataIncremental reabierto = new LibroXmlDataIncremental(rutaArchivo, null, TAMANO_RUN);
+        List<Libro> libros = reabierto.findAll();
+
+        assertEquals(10, libros.size());
+        assertEquals("Titulo A", libros.get(0).getTitulo());
+        assertEquals("Titulo J", libros.get(9).getTitulo());
+
+        // Un ISBN ya existente sigue rechazándose tras reabrir
+        reabierto.insertar(libro("5", "Duplicado"));
+        assertEquals(10, reabierto.findAll().size());
+    }
+
+    @Test
+    void findLibrosByIdAutor_con_idAutor_Existente() {
+        Autor autor1 = new Autor(1, "Gabriel", "García Márquez", "Colombiana");
+        Autor autor2 = new Autor(2, "Isabel", "Allende", "Chilena");
+
+        Libro libro1 = new Libro("111", "Cien años de soledad", 1967);
+        libro1.setAutores(List.of(autor1));
+        Libro libro2 = new Libro("222", "El amor en los tiempos del cólera", 1985);
+        libro2.setAutores(List.of(autor1, autor2));
+        Libro libro3 = new Libro("333", "La casa de los espíritus", 1982);
+        libro3.setAutores(List.of(autor2));
+
+        libroData.insertar(libro1);
+        libroData.compactar();
+        libroData.insertar(libro2);
+        libroData.insertar(libro3);
+
+        Map<String, Libro> librosAutor1 = libroData.findLibrosByIdAutor(1);
+
+        assertEquals(2, librosAutor1.size());
+        assertTrue(librosAutor1.containsKey("111"));
+        assertTrue(librosAutor1.containsKey("222"));
+        assertTrue(libroData.findLibrosByIdAutor(999).isEmpty());
+    }
+
+    @Test
+    void actualizar_cuando_cambiaTitulo_reordena() {
+        libroData.insertar(libro("1", "Aventuras"));
+        libroData.insertar(libro("2", "Medicina"));
+        libroData.compactar();
+
+        // La corrección queda en el run activo y el original en el archivo base
+        assertTrue(libroData.actualizar(libro("1", "Zoología")));
+        assertFalse(libroData.actualizar(libro("999", "Inexistente")));
+
+        List<Libro> libros = libroData.findAll();
+        assertEquals(2, libros.size());
+        assertEquals("Medicina", libros.get(0).getTitulo());
+        assertEquals("Zoología", libros.get(1).getTitulo());
+        assertEquals("Zoología", libroData.findLibroByIsbn("1").orElseThrow().getTitulo());
+
+        libroData.compactar();
+        assertEquals(2, libroData.findAll().size());
+        assertEquals("Zoología", libroData.findAll().get(1).getTitulo());
+    }
+
+    @Test
+    void eliminar_noReapareceAlFusionarNiAlReabrir() {
+        // Un archivo base más grande que los runs para que no se compacte de inmediato
+        for (int i = 1; i <= 12; i++) {
+            libroData.insertar(libro(String.valueOf(i), "Titulo " + i));
+        }
+        libroData.compactar();
+
+        assertTrue(libroData.eliminar("3"));
+        assertFalse(libroData.eliminar("3"));
+        assertFalse(libroData.findLibroByIsbn("3").isPresent());
+
+        // Llenar varios runs para que la marca de borrado pase por fusiones
+        for (int i = 100; i < 110; i++) {
+            libroData.insertar(libro(String.valueOf(i), "Otro " + i));
+        }
+        libroData.cerrar();
+
+        LibroXmlDataIncremental reabierto = new LibroXmlDataIncremental(rutaArchivo, null, TAMANO_RUN);
+        assertFalse(reabierto.findLibroByIsbn("3").isPresent());
+        assertEquals(21, reabierto.findAll().size());
+
+        reabierto.compactar();
+        assertFalse(reabierto.findLibroByIsbn("3").isPresent());
+        assertEquals(21, reabierto.findAll().size());
+    }
+
+    @Test
+    void insertar_despuesDeEliminar() {
+        libroData.insertar(libro("1", "Aventuras"));
+        libroData.compactar();
+        libroData.eliminar("1");
+
+        libroData.insertar(libro("1", "Aventuras, segunda edición"));
+
+        List<Libro> libros = libroData.findAll();
+        assertEquals(1, libros.size());
+        assertEquals("Aventuras, segunda edición", libros.get(0).getTitulo());
+    }
+
+    @Test
+    void findPagina_entreBaseYRuns_con_cursor() {
+        for (int i = 1; i <= 10; i++) {
+            libroData.insertar(libro(String.valueOf(i), String.format("Titulo %02d", i)));
+        }
+        libroData.compactar();
+        for (int i = 11; i <= 15; i++) {
+            libroData.insertar(libro(String.valueOf(i), String.format("Titulo %02d", 26 - i)));
+        }
+        libroData.eliminar("2");
+
+        List<Libro> todos = new ArrayList<>();
+        List<Libro> pagina = libroData.findPagina(null, null, 4);
+        while (!pagina.isEmpty()) {
+            todos.addAll(pagina);
+            Libro ultimo = pagina.get(pagina.size() - 1);
+            pagina = libroData.findPagina(ultimo.getTitulo(), ultimo.getIsbn(), 4);
+        }
+
+        assertEquals(libroData.findAll().size(), todos.size());
+        assertEquals(14, todos.size());
+        assertEquals("Titulo 01", todos.get(0).getTitulo());
+        assertEquals("Titulo 03", todos.get(1).getTitulo());
+        assertEquals("Titulo 15", todos.get(13).getTitulo());
+    }
+
+    @Test
+    void findPagina_baseDeLibroXmlData_conTitulosRepetidos() {
+        // LibroXmlData deja los títulos repetidos en orden de llegada, no por ISBN
+        libroData.cerrar();
+        new File(rutaArchivo).delete();
+        LibroXmlData base = new LibroXmlData(rutaArchivo);
+        base.insertar(libro("300", "Poemas"));
+        base.insertar(libro("100", "Poemas"));
+        base.insertar(libro("200", "Poemas"));
+        base.insertar(libro("900", "Zoología"));
+
+        libroData = new LibroXmlDataIncremental(rutaArchivo, null, TAMANO_RUN);
+        assertEquals(List.of("100", "200", "300", "900"), paginarIsbns());
+
+        libroData.insertar(libro("150", "Poemas"));
+        assertEquals(List.of("100", "150", "200", "300", "900"), paginarIsbns());
+
+        libroData.compactar();
+        assertEquals(List.of("100", "150", "200", "300", "900"), paginarIsbns());
+        assertEquals(paginarIsbns(), libroData.findAll().stream().map(Libro::getIsbn).toList());
+    }
+
+    private List<String> paginarIsbns() {
+        List<String> isbns = new ArrayList<>();
+        List<Libro> pagina = libroData.findPagina(null, null, 1);
+        while (!pagina.isEmpty()) {
+            Libro ultimo = pagina.get(0);
+            isbns.add(ultimo.getIsbn());
+            pagina = libroData.findPagina(ultimo.getTitulo(), ultimo.getIsbn(), 1);
+        }
+        return isbns;
+    }
+
+    @Test
+    void comprimido_baseYRunsSeReabren() {
+        String rutaComprimida = rutaArchivo + ".gz";
+        LibroXmlDataIncremental comprimida = new LibroXmlDataIncremental(rutaComprimida, null, TAMANO_RUN, true);
+        for (int i = 1; i <= 10; i++) {
+            comprimida.insertar(libro(String.valueOf(i), String.format("Titulo %02d", 11 - i)));
+        }
+
+        assertTrue(XmlArchivos.estaComprimido(new File(rutaComprimida)));
+
+        LibroXmlDataIncremental reabierta = new LibroXmlDataIncremental(rutaComprimida, null, TAMANO_RUN);
+        List<Libro> libros = reabierta.findAll();
+        assertEquals(10, libros.size());
+        assertEquals("Titulo 01", libros.get(0).getTitulo());
+    }
+}
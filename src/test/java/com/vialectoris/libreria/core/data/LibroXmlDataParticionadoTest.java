@@ -0,0 +1,145 @@
+package com.vialectoris.libreria.core.data;
+
+import com.vialectoris.libreria.core.domain.Autor;
+import com.vialectoris.libreria.core.domain.Libro;
+import org.jdom2.Document;
+import org.jdom2.input.SAXBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibroXmlDataParticionadoTest {
+    private static final int PARTICIONES = 4;
+
+    private String rutaArchivo;
+    private LibroXmlDataParticionado libroData;
+    private List<Autor> autores;
+
+    @BeforeEach
+    void setup() {
+        // Usar archivos diferentes para cada test para evitar interferencias
+        rutaArchivo = "libros_particionado_test_" + UUID.randomUUID() + ".xml";
+        libroData = new LibroXmlDataParticionado(rutaArchivo, PARTICIONES);
+
+        autores = new ArrayList<>();
+        autores.add(new Autor(1, "Gabriel", "García Márquez", "Colombiana"));
+    }
+
+    @AfterEach
+    void limpiar() {
+        libroData.cerrar();
+        for (int i = 0; i < PARTICIONES; i++) {
+            new File(LibroXmlDataParticionado.rutaParticion(rutaArchivo, i)).delete();
+        }
+        new File(LibroXmlDataParticionado.rutaManifiesto(rutaArchivo)).delete();
+    }
+
+    private Libro libro(String isbn, String titulo) {
+        Libro libro = new Libro(isbn, titulo, 2000);
+        libro.setAutores(autores);
+        return libro;
+    }
+
+    @Test
+    void insertar_repartePorIsbn_entreParticiones() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            libroData.insertar(libro("isbn-" + i, "Titulo " + i));
+        }
+
+        int total = 0;
+        SAXBuilder builder = new SAXBuilder();
+        for (int i = 0; i < PARTICIONES; i++) {
+            Document doc = builder.build(new File(LibroXmlDataParticionado.rutaParticion(rutaArchivo, i)));
+            int enParticion = doc.getRootElement().getChildren("libro").size();
+            assertTrue(enParticion > 0, "La partición " + i + " quedó vacía");
+            total += enParticion;
+        }
+        assertEquals(40, total);
+
+        assertEquals("Titulo 7", libroData.findLibroByIsbn("isbn-7").orElseThrow().getTitulo());
+        assertFalse(libroData.findLibroByIsbn("999").isPresent());
+    }
+
+    @Test
+    void reabrir_conOtraCantidadDeParticiones_falla() {
+        libroData.insertar(libro("isbn-1", "Cien años de soledad"));
+
+        assertThrows(IllegalStateException.class, () -> new LibroXmlDataParticionado(rutaArchivo, PARTICIONES - 1));
+        assertThrows(IllegalStateException.class, () -> new LibroXmlDataParticionado(rutaArchivo, PARTICIONES + 1));
+        assertFalse(new File(LibroXmlDataParticionado.rutaParticion(rutaArchivo, PARTICIONES)).exists());
+
+        // Sin manifiesto (catálogo anterior a él) se cuentan los archivos de partición
+        new File(LibroXmlDataParticionado.rutaManifiesto(rutaArchivo)).delete();
+        assertThrows(IllegalStateException.class, () -> new LibroXmlDataParticionado(rutaArchivo, PARTICIONES * 2));
+
+        LibroXmlDataParticionado reabierto = new LibroXmlDataParticionado(rutaArchivo, PARTICIONES);
+        assertTrue(reabierto.findLibroByIsbn("isbn-1").isPresent());
+        reabierto.cerrar();
+        assertTrue(new File(LibroXmlDataParticionado.rutaManifiesto(rutaArchivo)).exists());
+    }
+
+    @Test
+    void findLibrosByIdAutor_combinaParticiones() {
+        Autor autor2 = new Autor(2, "Isabel", "Allende", "Chilena");
+        for (int i = 0; i < 20; i++) {
+            Libro libro = libro("isbn-" + i, "Titulo " + i);
+            if (i % 2 == 0) {
+                libro.addAutor(autor2);
+            }
+            libroData.insertar(libro);
+        }
+
+        Map<String, Libro> librosAutor2 = libroData.findLibrosByIdAutor(2);
+
+        assertEquals(10, librosAutor2.size());
+        assertTrue(librosAutor2.containsKey("isbn-0"));
+        assertFalse(librosAutor2.containsKey("isbn-1"));
+        assertEquals(20, libroData.findLibrosByIdAutor(1).size());
+    }
+
+    @Test
+    void findPagina_ordenGlobalPorTitulo() {
+        for (int i = 30; i >= 1; i--) {
+            libroData.insertar(libro("isbn-" + i, String.format("Titulo %02d", i)));
+        }
+
+        List<Libro> todos = new ArrayList<>();
+        List<Libro> pagina = libroData.findPagina(null, null, 7);
+        while (!pagina.isEmpty()) {
+            todos.addAll(pagina);
+            Libro ultimo = pagina.get(pagina.size() - 1);
+            pagina = libroData.findPagina(ultimo.getTitulo(), ultimo.getIsbn(), 7);
+        }
+
+        assertEquals(30, todos.size());
+        for (int i = 0; i < todos.size(); i++) {
+            assertEquals(String.format("Titulo %02d", i + 1), todos.get(i).getTitulo());
+        }
+    }
+
+    @Test
+    void insertar_concurrente_desdeVariosHilos() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 80; i++) {
+            int numero = i;
+            hilos.submit(() -> libroData.insertar(libro("isbn-" + numero, "Titulo " + numero)));
+        }
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(80, libroData.findLibrosByIdAutor(1).size());
+        assertTrue(libroData.eliminar("isbn-5"));
+        assertFalse(libroData.findLibroByIsbn("isbn-5").isPresent());
+    }
+}
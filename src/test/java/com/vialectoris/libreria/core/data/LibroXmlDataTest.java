@@ -9,6 +9,9 @@ import org.jdom2.Document;
 import org.jdom2.Element;
 
 import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +19,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class LibroXmlDataTest {
     private String rutaArchivo;
@@ -171,4 +175,216 @@ class LibroXmlDataTest {
 
         assertTrue(librosAutor.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void actualizar_cuando_cambiaTitulo_reordena() throws Exception {
+        Libro libro1 = new Libro("111", "Aventuras", 1990);
+        libro1.setAutores(autores);
+        Libro libro2 = new Libro("222", "Medicina", 1980);
+        libro2.setAutores(autores);
+        Libro libro3 = new Libro("333", "Zoología", 1970);
+        libro3.setAutores(autores);
+
+        libroData.insertar(libro1);
+        libroData.insertar(libro2);
+        libroData.insertar(libro3);
+
+        // Cambiar el título del primer libro para que quede al final
+        Libro corregido = new Libro("111", "Zumbidos", 1991);
+        corregido.setAutores(autores);
+        assertTrue(libroData.actualizar(corregido));
+
+        SAXBuilder builder = new SAXBuilder();
+        Document doc = builder.build(new File(rutaArchivo));
+        List<Element> libros = doc.getRootElement().getChildren("libro");
+
+        assertEquals(3, libros.size());
+        assertEquals("Medicina", libros.get(0).getChildText("titulo"));
+        assertEquals("Zoología", libros.get(1).getChildText("titulo"));
+        assertEquals("Zumbidos", libros.get(2).getChildText("titulo"));
+        assertEquals(1991, libroData.findLibroByIsbn("111").get().getAnnoPublicacion());
+    }
+
+    @Test
+    void actualizar_con_libro_noExistente() {
+        Libro libro = new Libro("999", "Inexistente", 2000);
+        libro.setAutores(autores);
+
+        assertFalse(libroData.actualizar(libro));
+        assertFalse(libroData.findLibroByIsbn("999").isPresent());
+    }
+
+    @Test
+    void eliminar_con_libro_existente() {
+        Libro libro1 = new Libro("111", "Cien años de soledad", 1967);
+        libro1.setAutores(autores);
+        Libro libro2 = new Libro("222", "El amor en los tiempos del cólera", 1985);
+        libro2.setAutores(autores);
+
+        libroData.insertar(libro1);
+        libroData.insertar(libro2);
+
+        assertTrue(libroData.eliminar("111"));
+        assertFalse(libroData.eliminar("111"));
+
+        assertFalse(libroData.findLibroByIsbn("111").isPresent());
+        assertTrue(libroData.findLibroByIsbn("222").isPresent());
+    }
+
+    @Test
+    void findPagina_ordenadaPorTitulo_con_cursor() {
+        String[] titulos = {"Medicina", "Aventuras", "Zoología", "Botánica", "Historia"};
+        for (int i = 0; i < titulos.length; i++) {
+            Libro libro = new Libro(String.valueOf(i), titulos[i], 2000);
+            libro.setAutores(autores);
+            libroData.insertar(libro);
+        }
+
+        List<Libro> pagina1 = libroData.findPagina(null, null, 2);
+        assertEquals(2, pagina1.size());
+        assertEquals("Aventuras", pagina1.get(0).getTitulo());
+        assertEquals("Botánica", pagina1.get(1).getTitulo());
+
+        // Usar título e ISBN del último libro de la página como cursor
+        Libro ultimo = pagina1.get(1);
+        List<Libro> pagina2 = libroData.findPagina(ultimo.getTitulo(), ultimo.getIsbn(), 2);
+        assertEquals(2, pagina2.size());
+        assertEquals("Historia", pagina2.get(0).getTitulo());
+        assertEquals("Medicina", pagina2.get(1).getTitulo());
+
+        ultimo = pagina2.get(1);
+        List<Libro> pagina3 = libroData.findPagina(ultimo.getTitulo(), ultimo.getIsbn(), 2);
+        assertEquals(1, pagina3.size());
+        assertEquals("Zoología", pagina3.get(0).getTitulo());
+        assertEquals(1, pagina3.get(0).getAutores().get(0).getIdAutor());
+    }
+
+    @Test
+    void findPagina_con_titulosRepetidos_usaIsbnComoDesempate() {
+        for (String isbn : new String[]{"300", "100", "200"}) {
+            Libro libro = new Libro(isbn, "Poemas", 2000);
+            libro.setAutores(autores);
+            libroData.insertar(libro);
+        }
+
+        List<Libro> pagina1 = libroData.findPagina(null, null, 2);
+        assertEquals("100", pagina1.get(0).getIsbn());
+        assertEquals("200", pagina1.get(1).getIsbn());
+
+        List<Libro> pagina2 = libroData.findPagina("Poemas", "200", 2);
+        assertEquals(1, pagina2.size());
+        assertEquals("300", pagina2.get(0).getIsbn());
+    }
+
+    @Test
+    void findLibroByIsbn_veCambiosDeOtraInstancia() {
+        Libro libro1 = new Libro("111", "Cien años de soledad", 1967);
+        libro1.setAutores(autores);
+        libroData.insertar(libro1);
+        assertTrue(libroData.findLibroByIsbn("111").isPresent());
+
+        // Otra instancia sobre el mismo archivo escribe un libro nuevo
+        LibroXmlData otraInstancia = new LibroXmlData(rutaArchivo);
+        Libro libro2 = new Libro("222", "El amor en los tiempos del cólera", 1985);
+        libro2.setAutores(autores);
+        otraInstancia.insertar(libro2);
+
+        assertTrue(libroData.findLibroByIsbn("222").isPresent());
+    }
+
+    @Test
+    void findLibroByIsbn_veActualizacionDeOtraInstancia_conMismoTamanoYFecha() {
+        Libro libro = new Libro("111", "Cien años de soledad", 1967);
+        libro.setAutores(autores);
+        libroData.insertar(libro);
+        assertEquals(1967, libroData.findLibroByIsbn("111").orElseThrow().getAnnoPublicacion());
+
+        File archivo = new File(rutaArchivo);
+        long modificado = archivo.lastModified();
+        long tamano = archivo.length();
+
+        // Otra instancia cambia el año: el archivo conserva el tamaño, y se le devuelve la
+        // fecha anterior para simular una escritura dentro del mismo milisegundo
+        LibroXmlData otraInstancia = new LibroXmlData(rutaArchivo);
+        assertTrue(otraInstancia.actualizar(new Libro("111", "Cien años de soledad", 1968, autores)));
+        archivo.setLastModified(modificado);
+        assertEquals(tamano, archivo.length());
+
+        assertEquals(1968, libroData.findLibroByIsbn("111").orElseThrow().getAnnoPublicacion());
+
+        new File(rutaArchivo).delete();
+    }
+
+    @Test
+    void insertar_conservaPermisosDelArchivo() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        File archivo = new File(rutaArchivo);
+        for (String permisos : new String[]{"rw-r--r--", "rw-r-----"}) {
+            Files.setPosixFilePermissions(archivo.toPath(), PosixFilePermissions.fromString(permisos));
+
+            // Cada escritura reemplaza el archivo por un temporal renombrado
+            libroData.insertar(new Libro(permisos, "Libro " + permisos, 2000, autores));
+
+            assertEquals(permisos, PosixFilePermissions.toString(Files.getPosixFilePermissions(archivo.toPath())));
+        }
+
+        archivo.delete();
+    }
+
+    @Test
+    void comprimido_ocupaMenos_y_conservaOrdenYTextos() {
+        String rutaComprimida = "libros_test_" + UUID.randomUUID() + ".xml.gz";
+        LibroXmlData comprimida = new LibroXmlData(rutaComprimida, null, true);
+
+        for (int i = 0; i < 50; i++) {
+            Libro libro = new Libro(String.valueOf(i), String.format("Título  %02d", 49 - i), 1900 + i);
+            libro.setAutores(autores);
+            libroData.insertar(libro);
+            comprimida.insertar(libro);
+        }
+
+        assertTrue(new File(rutaComprimida).length() * 3 < new File(rutaArchivo).length());
+
+        // Los espacios dentro de los textos se conservan y el orden por título se mantiene
+        List<Libro> pagina = new LibroXmlData(rutaComprimida).findPagina(null, null, 2);
+        assertEquals("Título  00", pagina.get(0).getTitulo());
+        assertEquals("Título  01", pagina.get(1).getTitulo());
+        assertEquals(1948, pagina.get(1).getAnnoPublicacion());
+
+        new File(rutaComprimida).delete();
+    }
+
+    @Test
+    void insertarLote_mezclaPorTitulo_y_descartaIsbnRepetidos() throws Exception {
+        Libro existente1 = new Libro("1", "Cien años de soledad", 1967);
+        existente1.setAutores(autores);
+        Libro existente2 = new Libro("2", "Rayuela", 1963);
+        existente2.setAutores(autores);
+        libroData.insertar(existente1);
+        libroData.insertar(existente2);
+
+        List<Libro> lote = new ArrayList<>();
+        lote.add(new Libro("3", "Pedro Páramo", 1955, autores));
+        lote.add(new Libro("4", "Aura", 1962, autores));
+        lote.add(new Libro("2", "Repetido", 2000, autores)); // ISBN que ya existe
+        lote.add(new Libro("5", "Rayuela", 2001, autores));
+        lote.add(new Libro("3", "Otro repetido", 2000, autores)); // ISBN repetido en el lote
+
+        assertEquals(3, libroData.insertarLote(lote));
+
+        Document doc = new SAXBuilder().build(new File(rutaArchivo));
+        List<String> isbns = new ArrayList<>();
+        for (Element libroElement : doc.getRootElement().getChildren("libro")) {
+            isbns.add(libroElement.getAttributeValue("ISBN"));
+        }
+        // Con el mismo título, el libro que ya existía queda primero
+        assertEquals(List.of("4", "1", "3", "2", "5"), isbns);
+
+        assertEquals("Rayuela", libroData.findLibroByIsbn("2").orElseThrow().getTitulo());
+        assertEquals(1955, libroData.findLibroByIsbn("3").orElseThrow().getAnnoPublicacion());
+        assertEquals(5, libroData.findLibrosByIdAutor(1).size());
+
+        new File(rutaArchivo).delete();
+    }
+}
@@ -0,0 +1,126 @@
+package com.vialectoris.libreria.core.data;
+
+import com.vialectoris.libreria.core.domain.Autor;
+import com.vialectoris.libreria.core.domain.Libro;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferenciaXmlTest {
+    private String prefijo;
+    private List<String> rutas;
+
+    @BeforeEach
+    void setup() {
+        // Usar archivos diferentes para cada test para evitar interferencias
+        prefijo = "transferencia_test_" + UUID.randomUUID();
+        rutas = new ArrayList<>();
+    }
+
+    @AfterEach
+    void limpiar() {
+        for (String ruta : rutas) {
+            new File(ruta).delete();
+        }
+    }
+
+    private String ruta(String nombre) {
+        String ruta = prefijo + "_" + nombre;
+        rutas.add(ruta);
+        return ruta;
+    }
+
+    @Test
+    void transferirLibros_entreFormatos_conservaOrdenYDatos() throws Exception {
+        String origen = ruta("libros.xml");
+        String comprimido = ruta("libros.xml.gz");
+        String copia = ruta("libros_copia.xml");
+
+        LibroXmlData libroData = new LibroXmlData(origen);
+        for (int i = 0; i < 30; i++) {
+            Libro libro = new Libro(String.valueOf(i), String.format("Titulo %02d", 29 - i), 1950 + i);
+            libro.addAutor(new Autor(i % 3, null, null, null));
+            libro.addAutor(new Autor(100, null, null, null));
+            libroData.insertar(libro);
+        }
+
+        TransferenciaXml transferencia = new TransferenciaXml(4, 8, null);
+        assertEquals(30, transferencia.transferirLibros(origen, comprimido, true));
+        assertEquals(30, transferencia.transferirLibros(comprimido, copia, false));
+
+        assertTrue(XmlArchivos.estaComprimido(new File(comprimido)));
+
+        // La copia sin comprimir es idéntica al archivo original
+        Document original = new SAXBuilder().build(new File(origen));
+        Document resultado = new SAXBuilder().build(new File(copia));
+        List<Element> librosOriginal = original.getRootElement().getChildren("libro");
+        List<Element> librosResultado = resultado.getRootElement().getChildren("libro");
+        assertEquals(librosOriginal.size(), librosResultado.size());
+        for (int i = 0; i < librosOriginal.size(); i++) {
+            assertEquals(librosOriginal.get(i).getAttributeValue("ISBN"), librosResultado.get(i).getAttributeValue("ISBN"));
+            assertEquals(librosOriginal.get(i).getChildText("titulo"), librosResultado.get(i).getChildText("titulo"));
+        }
+        assertEquals(Files.readString(new File(origen).toPath()), Files.readString(new File(copia).toPath()));
+
+        // El archivo comprimido sigue siendo utilizable por el almacén
+        Libro libro = new LibroXmlData(comprimido).findLibroByIsbn("7").orElseThrow();
+        assertEquals("Titulo 22", libro.getTitulo());
+        assertEquals(2, libro.getAutores().size());
+    }
+
+    @Test
+    void transferirAutores_reportaProgresoPorLotes() throws Exception {
+        String origen = ruta("autores.xml");
+        String destino = ruta("autores.xml.gz");
+
+        AutorXmlData autorData = new AutorXmlData(origen);
+        for (int i = 1; i <= 25; i++) {
+            autorData.insertar(new Autor(i, "Nombre " + i, "Apellidos " + i, "Costarricense"));
+        }
+
+        List<Long> reportes = new ArrayList<>();
+        TransferenciaXml transferencia = new TransferenciaXml(2, 10, reportes::add);
+
+        assertEquals(25, transferencia.transferirAutores(origen, destino, true));
+
+        assertTrue(reportes.size() >= 3);
+        assertEquals(25L, reportes.get(reportes.size() - 1));
+        for (int i = 1; i < reportes.size(); i++) {
+            assertTrue(reportes.get(i) >= reportes.get(i - 1));
+        }
+
+        Set<Autor> autores = new AutorXmlData(destino).findAll();
+        assertEquals(25, autores.size());
+        assertEquals("Apellidos 9", new AutorXmlData(destino).findAutorById(9).orElseThrow().getApellidos());
+    }
+
+    @Test
+    void transferirLibros_origenDesordenado_noModificaDestino() throws Exception {
+        String origen = ruta("desordenado.xml");
+        String destino = ruta("destino.xml");
+
+        Files.writeString(new File(origen).toPath(), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<libros>"
+                + "<libro ISBN=\"1\"><titulo>Zoología</titulo><annoPublicacion>2000</annoPublicacion></libro>"
+                + "<libro ISBN=\"2\"><titulo>Aventuras</titulo><annoPublicacion>2000</annoPublicacion></libro>"
+                + "</libros>");
+        Files.writeString(new File(destino).toPath(), "previo");
+
+        TransferenciaXml transferencia = new TransferenciaXml(1, 1, null);
+
+        assertThrows(IOException.class, () -> transferencia.transferirLibros(origen, destino, false));
+        assertEquals("previo", Files.readString(new File(destino).toPath()));
+    }
+}